@@ -0,0 +1,342 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds shortest paths between pairs of vertices in a graph with vertices of type `VertexType` and
+ * edges of type `EdgeType` by searching forward from the source and backward from the destination
+ * simultaneously (bidirectional Dijkstra).  The two searches meet roughly halfway, so a query
+ * settles far fewer vertices than a search from the source that covers the whole graph.  A solver
+ * may be reused for any number of queries without clearing its storage, so clients that search
+ * repeatedly should keep one rather than allocating per-vertex arrays for each query.  That
+ * storage takes about 48 bytes per vertex (three ints and a frontier entry per direction).
+ */
+public class BidirectionalShortestPaths<VertexType extends Vertex<EdgeType>,
+        EdgeType extends Edge> {
+
+    /**
+     * The graph we are searching for paths in.
+     */
+    private final ReversibleGraph<VertexType, EdgeType> graph;
+
+    /**
+     * Weigher to use in order to query edge weights in our graph.
+     */
+    private final Weigher<EdgeType> weigher;
+
+    /**
+     * Our graph viewed as a `ReversibleIntGraph`, or null if it does not support primitive
+     * traversal (or our weigher cannot weigh its edges by direction).  When available, edges are
+     * relaxed in both directions through this view without allocating Vertex or Edge objects.
+     */
+    private final ReversibleIntGraph intGraph;
+
+    /**
+     * Our weigher viewed as an `IntWeigher`.  Null if and only if `intGraph` is null.
+     */
+    private final IntWeigher intWeigher;
+
+    /**
+     * Relaxes the edges reported by `intGraph` out of `expandingId` for the forward search.
+     * Created once so that settling a vertex allocates nothing.
+     */
+    private final IntEdgeVisitor forwardRelaxer;
+
+    /**
+     * Relaxes the edges reported by `intGraph` into `expandingId` for the backward search.
+     * Created once so that settling a vertex allocates nothing.
+     */
+    private final IntEdgeVisitor backwardRelaxer;
+
+    /**
+     * The ID of the vertex whose edges `forwardRelaxer` or `backwardRelaxer` is currently relaxing.
+     */
+    private int expandingId;
+
+    /**
+     * Search state for the forward search from the source of the current query.
+     */
+    private final Search forward;
+
+    /**
+     * Search state for the backward search from the destination of the current query.
+     */
+    private final Search backward;
+
+    /**
+     * Identifies the current query.  Search state recorded with an older epoch is treated as
+     * cleared.  Always positive.
+     */
+    private int epoch;
+
+    /**
+     * The weight of the shortest path found so far between the source and destination of the
+     * current query, or `Integer.MAX_VALUE` if the searches have not met.
+     */
+    private int bestDistance;
+
+    /**
+     * The ID of the last vertex reached by the forward search along the shortest path found so far
+     * (which then continues to `meetToId`), or -1 if the searches have not met.
+     */
+    private int meetFromId;
+
+    /**
+     * The ID of the first vertex reached by the backward search along the shortest path found so
+     * far (which is preceded by `meetFromId`), or -1 if the searches have not met.
+     */
+    private int meetToId;
+
+    /**
+     * If not null, queries stop settling vertices as soon as this token is cancelled.
+     */
+    private volatile CancellationToken cancellation;
+
+    /**
+     * The state of one direction of search.  A vertex's entries are only meaningful if its mark is
+     * `2 * epoch` (discovered) or `2 * epoch + 1` (settled).
+     */
+    private class Search {
+
+        /**
+         * `distances[id]` is the weight of the shortest known path between this search's origin
+         * and the vertex with ID `id`.
+         */
+        final int[] distances;
+
+        /**
+         * `links[id]` is the ID of the next vertex toward this search's origin along that path, or
+         * -1 if `id` is the origin.
+         */
+        final int[] links;
+
+        /**
+         * `marks[id]` records whether the vertex with ID `id` has been discovered or settled by the
+         * current query (see class spec).
+         */
+        final int[] marks;
+
+        /**
+         * Vertices discovered but not yet settled, ordered by distance from this search's origin.
+         */
+        final IntMinQueue frontier;
+
+        Search(int vertexCount) {
+            distances = new int[vertexCount];
+            links = new int[vertexCount];
+            marks = new int[vertexCount];
+            frontier = IntMinQueue.forWeigher(vertexCount, weigher);
+        }
+
+        boolean discovered(int id) {
+            return marks[id] >= 2 * epoch;
+        }
+
+        boolean settled(int id) {
+            return marks[id] == 2 * epoch + 1;
+        }
+
+        /**
+         * Clear this search's frontier, then make the vertex with ID `originId` its only
+         * discovered vertex.
+         */
+        void start(int originId) {
+            frontier.clear();
+            distances[originId] = 0;
+            links[originId] = -1;
+            marks[originId] = 2 * epoch;
+            frontier.addOrUpdate(originId, 0);
+        }
+
+        /**
+         * Record a path of weight `distance` to the vertex with ID `id` whose next vertex toward
+         * our origin has ID `linkId`, if it is shorter than any known path.  Requires `id` is not
+         * settled.
+         */
+        void relax(int id, int linkId, int distance) {
+            if (!discovered(id) || distance < distances[id]) {
+                distances[id] = distance;
+                links[id] = linkId;
+                marks[id] = 2 * epoch;
+                frontier.addOrUpdate(id, distance);
+            }
+        }
+    }
+
+    /**
+     * Create a new bidirectional shortest paths solver for the graph `graph` whose edge weights are
+     * determined by `weigher`.
+     */
+    public BidirectionalShortestPaths(ReversibleGraph<VertexType, EdgeType> graph,
+            Weigher<EdgeType> weigher) {
+        this.graph = graph;
+        this.weigher = weigher;
+        if (graph instanceof ReversibleIntGraph g && weigher instanceof IntWeigher w) {
+            intGraph = g;
+            intWeigher = w;
+        } else {
+            intGraph = null;
+            intWeigher = null;
+        }
+        forwardRelaxer = (endId, dir, weight) -> relaxForward(expandingId, endId, weight);
+        backwardRelaxer = (startId, dir, weight) -> relaxBackward(startId, expandingId, weight);
+        forward = new Search(graph.vertexCount());
+        backward = new Search(graph.vertexCount());
+        epoch = 0;
+    }
+
+    /**
+     * Make every subsequent query stop early (returning null) once `token` is cancelled, or never
+     * stop early if `token` is null.  The token is checked before each vertex is settled, as by
+     * `ShortestPaths`, so a cancelled query stops promptly.
+     */
+    public void setCancellationToken(CancellationToken token) {
+        cancellation = token;
+    }
+
+    /**
+     * Return whether our cancellation token (if any) has been cancelled.
+     */
+    private boolean cancelled() {
+        CancellationToken token = cancellation;
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * Return the sequence of vertex IDs representing a shortest path from the vertex with ID
+     * `srcId` to the vertex with ID `dstId` (inclusive).  Returns null if the destination is not
+     * reachable from the source, or if our cancellation token is cancelled before the path is
+     * known.
+     */
+    public List<Integer> findPath(int srcId, int dstId) {
+        beginQuery();
+        if (srcId == dstId) {
+            return List.of(srcId);
+        }
+        forward.start(srcId);
+        backward.start(dstId);
+        bestDistance = Integer.MAX_VALUE;
+        meetFromId = -1;
+        meetToId = -1;
+
+        // Once the closest unsettled vertices of both searches are together at least as far as the
+        //  best known path, no undiscovered path through them can be shorter.
+        while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()
+                && (long) forward.frontier.minPriority() + backward.frontier.minPriority()
+                < bestDistance) {
+            if (cancelled()) {
+                return null;
+            }
+            // Expand whichever search has the smaller frontier to keep their work balanced.
+            if (forward.frontier.size() <= backward.frontier.size()) {
+                expandForward();
+            } else {
+                expandBackward();
+            }
+        }
+
+        if (meetFromId < 0) {
+            return null;
+        }
+        List<Integer> path = new ArrayList<>();
+        for (int id = meetFromId; id >= 0; id = forward.links[id]) {
+            path.add(id);
+        }
+        Collections.reverse(path);
+        for (int id = meetToId; id >= 0; id = backward.links[id]) {
+            path.add(id);
+        }
+        return path;
+    }
+
+    /**
+     * Advance to a new epoch, implicitly clearing the state of both searches.  The mark arrays
+     * only need to be cleared when epochs are exhausted.
+     */
+    private void beginQuery() {
+        if (epoch >= Integer.MAX_VALUE / 2 - 1) {
+            Arrays.fill(forward.marks, 0);
+            Arrays.fill(backward.marks, 0);
+            epoch = 0;
+        }
+        epoch += 1;
+    }
+
+    /**
+     * Settle the closest unsettled vertex of the forward search and relax its outgoing edges,
+     * recording any path that meets the backward search.
+     */
+    private void expandForward() {
+        int curr = forward.frontier.remove();
+        forward.marks[curr] = 2 * epoch + 1;
+        if (intGraph != null) {
+            expandingId = curr;
+            intGraph.forEachNeighbor(curr, intWeigher, forwardRelaxer);
+        } else {
+            for (EdgeType e : graph.getVertex(curr).outgoingEdges()) {
+                relaxForward(curr, e.endId(), weigher.weight(e));
+            }
+        }
+    }
+
+    /**
+     * Relax the edge of weight `weight` from the settled vertex with ID `curr` to the vertex with
+     * ID `neighbor` for the forward search, recording any path that meets the backward search.
+     */
+    private void relaxForward(int curr, int neighbor, int weight) {
+        int distance = forward.distances[curr] + weight;
+        if (!forward.settled(neighbor)) {
+            forward.relax(neighbor, curr, distance);
+        }
+        if (backward.discovered(neighbor)) {
+            recordMeeting(curr, neighbor, distance + backward.distances[neighbor]);
+        }
+    }
+
+    /**
+     * Settle the closest unsettled vertex of the backward search and relax its incoming edges,
+     * recording any path that meets the forward search.
+     */
+    private void expandBackward() {
+        int curr = backward.frontier.remove();
+        backward.marks[curr] = 2 * epoch + 1;
+        if (intGraph != null) {
+            expandingId = curr;
+            intGraph.forEachPredecessor(curr, intWeigher, backwardRelaxer);
+        } else {
+            for (EdgeType e : graph.incomingEdges(curr)) {
+                relaxBackward(e.startId(), curr, weigher.weight(e));
+            }
+        }
+    }
+
+    /**
+     * Relax the edge of weight `weight` from the vertex with ID `neighbor` to the settled vertex
+     * with ID `curr` for the backward search, recording any path that meets the forward search.
+     */
+    private void relaxBackward(int neighbor, int curr, int weight) {
+        int distance = backward.distances[curr] + weight;
+        if (!backward.settled(neighbor)) {
+            backward.relax(neighbor, curr, distance);
+        }
+        if (forward.discovered(neighbor)) {
+            recordMeeting(neighbor, curr, distance + forward.distances[neighbor]);
+        }
+    }
+
+    /**
+     * Record the path through the edge from the vertex with ID `fromId` to the vertex with ID
+     * `toId` as the best path of the current query if its total weight, `distance`, is smaller
+     * than that of any path found so far.
+     */
+    private void recordMeeting(int fromId, int toId, int distance) {
+        if (distance < bestDistance) {
+            bestDistance = distance;
+            meetFromId = fromId;
+            meetToId = toId;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A _monotone_ min priority queue of distinct integer elements in `[0..capacity)`, implemented as
+ * a circular array of buckets (Dial's algorithm).  Each bucket holds the elements with one priority
+ * value in an intrusive doubly-linked list, so adding an element or changing its priority costs
+ * O(1), and removing the minimum costs O(1) amortized over a Dijkstra search whose edge weights are
+ * bounded.
+ * <p>
+ * Monotone means that no element may be given a priority smaller than the priority of the most
+ * recently removed element (which Dijkstra's algorithm guarantees for non-negative weights).
+ * Priorities in the queue may span more than the initial number of buckets; if they do, the
+ * bucket array is grown to fit (the only operation that allocates memory).
+ */
+public class BucketMinQueue implements IntMinQueue {
+
+    /**
+     * Value of `prev[key]` when `key` is not contained in this queue.
+     */
+    private static final int NOT_QUEUED = -2;
+
+    /**
+     * `heads[p & mask]` is the first element of the bucket holding elements with priority `p`, or
+     * -1 if that bucket is empty.  Length is a power of 2.
+     */
+    private int[] heads;
+
+    /**
+     * `heads.length - 1`, used to map a priority to its bucket.
+     */
+    private int mask;
+
+    /**
+     * `next[key]` is the element following `key` in its bucket, or -1 if `key` is last.
+     */
+    private final int[] next;
+
+    /**
+     * `prev[key]` is the element preceding `key` in its bucket, -1 if `key` is first, or
+     * `NOT_QUEUED` if `key` is not contained in this queue.
+     */
+    private final int[] prev;
+
+    /**
+     * `priorities[key]` is the priority of `key` if it is contained in this queue.
+     */
+    private final int[] priorities;
+
+    /**
+     * The number of elements contained in this queue.
+     */
+    private int size;
+
+    /**
+     * A lower bound on the priorities of all elements in this queue.  Only advanced when the
+     * bucket it maps to is empty.
+     */
+    private int cursor;
+
+    /**
+     * An upper bound on the priorities of all elements in this queue.  Satisfies
+     * `maxPriority - cursor < heads.length` whenever the queue is non-empty, which guarantees that
+     * each bucket only holds elements of a single priority.
+     */
+    private int maxPriority;
+
+    /**
+     * The priority of the most recently removed element (or `Integer.MIN_VALUE` if none has been
+     * removed since construction or the last `clear()`).
+     */
+    private int lastRemoved;
+
+    /**
+     * Create an empty queue capable of holding the elements `[0..capacity)`, sized for an
+     * application in which the priorities of the queue's elements never differ from its minimum
+     * priority by more than `maxSpan` (for Dijkstra's algorithm, the maximum edge weight).
+     * Requires `maxSpan` is non-negative.
+     */
+    public BucketMinQueue(int capacity, int maxSpan) {
+        assert maxSpan >= 0;
+        heads = new int[bucketCountFor(maxSpan)];
+        Arrays.fill(heads, -1);
+        mask = heads.length - 1;
+        next = new int[capacity];
+        prev = new int[capacity];
+        priorities = new int[capacity];
+        Arrays.fill(prev, NOT_QUEUED);
+        size = 0;
+        lastRemoved = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Return the smallest power of 2 that is greater than `span` (and at least 2).
+     */
+    private static int bucketCountFor(int span) {
+        return Integer.highestOneBit(Math.max(span, 1)) << 1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get() {
+        return heads[advanceCursor() & mask];
+    }
+
+    @Override
+    public int minPriority() {
+        return advanceCursor();
+    }
+
+    /**
+     * If `key` is already contained in this queue, change its associated priority to `priority`.
+     * Otherwise, add it to this queue with that priority.  Requires `key` is in `[0..capacity)` and
+     * that `priority` is no smaller than the priority of the most recently removed element.
+     */
+    @Override
+    public void addOrUpdate(int key, int priority) {
+        assert priority >= lastRemoved : "Priority " + priority + " violates monotonicity";
+        if (prev[key] != NOT_QUEUED) {
+            unlink(key);
+        }
+        if (size == 0) {
+            cursor = priority;
+            maxPriority = priority;
+        } else {
+            cursor = Math.min(cursor, priority);
+            maxPriority = Math.max(maxPriority, priority);
+            if (maxPriority - cursor > mask) {
+                grow(maxPriority - cursor);
+            }
+        }
+        priorities[key] = priority;
+        link(key);
+    }
+
+    @Override
+    public int remove() {
+        int priority = advanceCursor();
+        int key = heads[priority & mask];
+        unlink(key);
+        lastRemoved = priority;
+        return key;
+    }
+
+    /**
+     * Remove all elements from this queue (making it empty).  Runs in time proportional to the
+     * number of buckets plus the number of elements removed.
+     */
+    @Override
+    public void clear() {
+        for (int b = 0; b < heads.length; ++b) {
+            for (int key = heads[b]; key >= 0; key = next[key]) {
+                prev[key] = NOT_QUEUED;
+            }
+            heads[b] = -1;
+        }
+        size = 0;
+        lastRemoved = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Advance `cursor` to the smallest priority of any element in this queue, and return it.
+     * Throws NoSuchElementException if this queue is empty.
+     */
+    private int advanceCursor() {
+        if (size == 0) {
+            throw new NoSuchElementException("Queue is empty");
+        }
+        while (heads[cursor & mask] < 0) {
+            cursor += 1;
+        }
+        return cursor;
+    }
+
+    /**
+     * Insert `key` at the front of the bucket for `priorities[key]`.  Requires `key` is not
+     * currently in any bucket.
+     */
+    private void link(int key) {
+        int b = priorities[key] & mask;
+        int first = heads[b];
+        next[key] = first;
+        prev[key] = -1;
+        if (first >= 0) {
+            prev[first] = key;
+        }
+        heads[b] = key;
+        size += 1;
+    }
+
+    /**
+     * Remove `key` from its bucket.  Requires `key` is contained in this queue.
+     */
+    private void unlink(int key) {
+        int p = prev[key];
+        int n = next[key];
+        if (p >= 0) {
+            next[p] = n;
+        } else {
+            heads[priorities[key] & mask] = n;
+        }
+        if (n >= 0) {
+            prev[n] = p;
+        }
+        prev[key] = NOT_QUEUED;
+        size -= 1;
+    }
+
+    /**
+     * Replace the bucket array with one large enough for priorities spanning `span`, moving all
+     * elements to their new buckets.
+     */
+    private void grow(int span) {
+        int[] oldHeads = heads;
+        heads = new int[bucketCountFor(span)];
+        Arrays.fill(heads, -1);
+        mask = heads.length - 1;
+        size = 0;
+        for (int oldHead : oldHeads) {
+            int key = oldHead;
+            while (key >= 0) {
+                int following = next[key];
+                link(key);
+                key = following;
+            }
+        }
+    }
+}
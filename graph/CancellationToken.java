@@ -0,0 +1,29 @@
+package graph;
+
+/**
+ * Lets one thread ask a search running on another thread to stop early.  Solvers check their token
+ * cooperatively as they settle vertices, so cancellation takes effect within the time it takes to
+ * settle one vertex rather than only between batches.  Once cancelled, a token stays cancelled.
+ * Safe to use from multiple threads.
+ */
+public class CancellationToken {
+
+    /**
+     * Whether `cancel()` has been called.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Ask every search checking this token to stop as soon as possible.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Return whether `cancel()` has been called on this token.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
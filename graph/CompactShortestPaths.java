@@ -0,0 +1,512 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Incrementally solves for shortest paths from a starting vertex in a `GridGraph` while keeping
+ * only two bytes of state per vertex, so that searches of graphs too large for `ShortestPaths`
+ * (which keeps four `int`s per vertex, plus three more in its frontier queue) fit in memory.
+ * <p>
+ * Each vertex has a mark, recording whether the current search has discovered or settled it, and
+ * a link, recording the direction of the edge from its predecessor once it is settled; paths are
+ * reconstructed by following links backwards with `GridGraph.predecessorId()`.  Distances are only
+ * kept for the frontier: a hash table maps each discovered vertex to its tentative distance, and a
+ * binary heap of (distance, vertex, direction) entries is added to whenever relaxing an edge
+ * strictly improves that distance.  The first entry removed for a vertex settles it (and drops it
+ * from the table) and any older entries are discarded when they surface, so no distance is kept
+ * for a vertex once it is settled, and both structures are proportional to the frontier rather
+ * than to the graph.
+ * <p>
+ * Snapshots view our marks and links directly.  Unlike snapshots of `ShortestPaths`, they may
+ * report vertices settled after they were taken as settled (with their final paths), they only
+ * know paths to settled vertices, and they do not know distances.
+ */
+public class CompactShortestPaths implements ShortestPathsSolver {
+
+    /**
+     * The largest epoch before marks must be cleared.  Marks of the current epoch (`2 * epoch` and
+     * `2 * epoch + 1`) must fit in a `byte`.
+     */
+    private static final int MAX_EPOCH = 63;
+
+    /**
+     * The initial capacity of our frontier heap.
+     */
+    private static final int INITIAL_HEAP_CAPACITY = 1024;
+
+    /**
+     * The initial capacity of our table of tentative distances.  Must be a power of 2.
+     */
+    private static final int INITIAL_TENTATIVE_CAPACITY = 1024;
+
+    /**
+     * The graph we are searching for paths in.
+     */
+    private final GridGraph graph;
+
+    /**
+     * Weigher to use in order to query edge weights in our graph.
+     */
+    private final IntWeigher weigher;
+
+    /**
+     * Relaxes the edges reported by `graph` out of the vertex being settled, whose distance is
+     * `relaxingDistance`.  Created once so that settling a vertex allocates nothing.
+     */
+    private final IntEdgeVisitor relaxer;
+
+    /**
+     * The distance of the vertex whose edges `relaxer` is currently relaxing.
+     */
+    private int relaxingDistance;
+
+    /**
+     * `marks[id]` is `2 * epoch` if the vertex with ID `id` has been discovered by the current
+     * search but not settled, and `2 * epoch + 1` if it has been settled.  Other values are left
+     * over from earlier searches.
+     */
+    private byte[] marks;
+
+    /**
+     * `links[id]` is the direction of the edge from the predecessor of the vertex with ID `id` to
+     * that vertex along its shortest path (only meaningful if that vertex is settled and is not
+     * the start).
+     */
+    private byte[] links;
+
+    /**
+     * Identifies the current search in `marks`.  In `[1..MAX_EPOCH]`.
+     */
+    private int epoch;
+
+    /**
+     * The ID of the starting vertex for our current search, or -1 if no starting vertex has yet
+     * been selected.
+     */
+    private int startId;
+
+    /**
+     * Binary min-heap of frontier entries in `[0..heapSize)`, each packing the distance of a
+     * discovered path (in the upper 32 bits) with the ID of the vertex it reaches (in the lower 32
+     * bits), so that comparing entries compares distances.  Entries for vertices that have since
+     * been settled are stale and are skipped.
+     */
+    private long[] heapEntries;
+
+    /**
+     * `heapDirs[i]` is the direction of the last edge of the path recorded by `heapEntries[i]`.
+     */
+    private byte[] heapDirs;
+
+    /**
+     * The number of entries in our heap.
+     */
+    private int heapSize;
+
+    /**
+     * Open-addressing hash table (with linear probing) of the tentative distances of the vertices
+     * that the current search has discovered but not settled: if `tentativeIds[i]` is not -1, the
+     * vertex with that ID has tentative distance `tentativeDistances[i]`.  Each such vertex has
+     * exactly one slot.  The capacity is a power of 2 and is kept at least twice `frontierSize`.
+     */
+    private int[] tentativeIds;
+    private int[] tentativeDistances;
+
+    /**
+     * The number of vertices whose shortest paths from our starting vertex have been determined.
+     */
+    private int settledCount;
+
+    /**
+     * The number of vertices that the current search has discovered but not settled.  Each has at
+     * least one entry in our heap, so the heap holds only stale entries once this is 0.
+     */
+    private int frontierSize;
+
+    /**
+     * The largest distance from our starting vertex of any settled vertex, or -1 if none are
+     * settled.
+     */
+    private int maxSettledDistance;
+
+    /**
+     * If not null, only vertices whose IDs satisfy this predicate (and the starting vertex) may be
+     * discovered by the current search.
+     */
+    private IntPredicate region;
+
+    /**
+     * If not null, searches stop settling vertices as soon as this token is cancelled.
+     */
+    private volatile CancellationToken cancellation;
+
+    /**
+     * If not null, called with the ID of every vertex we settle.
+     */
+    private IntConsumer settleObserver;
+
+    /**
+     * Whether a snapshot sharing our current arrays has been returned to a client (and not
+     * discarded).  If so, those arrays must not be reused when our starting point changes.
+     */
+    private boolean shared;
+
+    /**
+     * Create a new compact shortest paths solver for the graph `graph` whose edge weights are
+     * determined by `weigher`.  Allocates two bytes per vertex.
+     */
+    public CompactShortestPaths(GridGraph graph, IntWeigher weigher) {
+        this.graph = graph;
+        this.weigher = weigher;
+        relaxer = (endId, dir, weight) -> relax(endId, dir, relaxingDistance + weight);
+        marks = new byte[graph.vertexCount()];
+        links = new byte[graph.vertexCount()];
+        heapEntries = new long[INITIAL_HEAP_CAPACITY];
+        heapDirs = new byte[INITIAL_HEAP_CAPACITY];
+        tentativeIds = new int[INITIAL_TENTATIVE_CAPACITY];
+        tentativeDistances = new int[INITIAL_TENTATIVE_CAPACITY];
+        Arrays.fill(tentativeIds, -1);
+        reset();
+    }
+
+    /**
+     * Clear any intermediate pathfinding results in preparation for finding paths from a new
+     * starting point.  This only advances `epoch`, except when epochs are exhausted (every
+     * `MAX_EPOCH` searches), or when our arrays are shared with snapshots that have been returned
+     * to clients, in which case fresh arrays are allocated.  Our heap and table of tentative
+     * distances are emptied, and shrunk back to their initial capacities if the previous search
+     * grew them, so that an idle solver does not keep the storage of its largest frontier.
+     */
+    private void reset() {
+        if (shared) {
+            marks = new byte[marks.length];
+            links = new byte[links.length];
+            epoch = 0;
+            shared = false;
+        } else if (epoch == MAX_EPOCH) {
+            Arrays.fill(marks, (byte) 0);
+            epoch = 0;
+        }
+        epoch += 1;
+        heapSize = 0;
+        if (heapEntries.length > INITIAL_HEAP_CAPACITY) {
+            heapEntries = new long[INITIAL_HEAP_CAPACITY];
+            heapDirs = new byte[INITIAL_HEAP_CAPACITY];
+        }
+        if (tentativeIds.length > INITIAL_TENTATIVE_CAPACITY) {
+            tentativeIds = new int[INITIAL_TENTATIVE_CAPACITY];
+            tentativeDistances = new int[INITIAL_TENTATIVE_CAPACITY];
+            Arrays.fill(tentativeIds, -1);
+        } else if (frontierSize > 0) {
+            // A search that stopped early left its frontier in the table.
+            Arrays.fill(tentativeIds, -1);
+        }
+        settledCount = 0;
+        frontierSize = 0;
+        maxSettledDistance = -1;
+        region = null;
+        startId = -1;
+    }
+
+    @Override
+    public int vertexCount() {
+        return graph.vertexCount();
+    }
+
+    @Override
+    public void setStart(int startId) {
+        reset();
+        this.startId = startId;
+        marks[startId] = (byte) (2 * epoch);
+        frontierSize = 1;
+        putTentative(startId, 0);
+        add(0, startId, 0);
+    }
+
+    @Override
+    public void restrictTo(IntPredicate inRegion) {
+        assert startId >= 0 && settledCount == 0 && frontierSize == 1;
+        region = inRegion;
+    }
+
+    @Override
+    public void setCancellationToken(CancellationToken token) {
+        cancellation = token;
+    }
+
+    @Override
+    public void setSettleObserver(IntConsumer observer) {
+        settleObserver = observer;
+    }
+
+    /**
+     * Return whether our cancellation token (if any) has been cancelled.
+     */
+    private boolean cancelled() {
+        CancellationToken token = cancellation;
+        return token != null && token.isCancelled();
+    }
+
+    @Override
+    public boolean allPathsFound() {
+        return frontierSize == 0 && startId >= 0;
+    }
+
+    @Override
+    public SearchProgress progress() {
+        return new SearchProgress(settledCount, frontierSize, maxSettledDistance);
+    }
+
+    @Override
+    public PathfindingSnapshot extendSearch(int maxToSettle) {
+        assert maxToSettle >= 0;
+        int newlySettled = 0;
+        while (frontierSize > 0 && newlySettled < maxToSettle && !cancelled()) {
+            if (settleNext()) {
+                newlySettled += 1;
+            }
+        }
+        return snapshot();
+    }
+
+    @Override
+    public PathfindingSnapshot extendSearchToCover(PrimitiveIterator.OfInt regionIds) {
+        settleAll(regionIds);
+        return snapshot();
+    }
+
+    @Override
+    public PathfindingSnapshot extendSearchUntil(int... targetIds) {
+        settleAll(Arrays.stream(targetIds).iterator());
+        return snapshot();
+    }
+
+    @Override
+    public PathfindingSnapshot findPathTo(int startId, int dstId) {
+        // As in `ShortestPaths`, a search confined to a region is not reused.
+        if (startId != this.startId || region != null) {
+            setStart(startId);
+        }
+        return extendSearchUntil(dstId);
+    }
+
+    @Override
+    public void discardSnapshots() {
+        shared = false;
+    }
+
+    /**
+     * Settle vertices until every vertex whose ID is produced by `ids` has been settled, the
+     * frontier is exhausted, or our cancellation token is cancelled.
+     */
+    private void settleAll(PrimitiveIterator.OfInt ids) {
+        while (ids.hasNext()) {
+            int id = ids.nextInt();
+            while (!settled(id) && frontierSize > 0) {
+                if (cancelled()) {
+                    return;
+                }
+                settleNext();
+            }
+        }
+    }
+
+    /**
+     * Return whether the current search has settled the vertex with ID `id`.
+     */
+    private boolean settled(int id) {
+        return marks[id] == 2 * epoch + 1;
+    }
+
+    /**
+     * Remove the smallest entry from our heap.  If its vertex is not yet settled, settle it along
+     * the entry's path, relax its outgoing edges, and return true; otherwise (the entry is stale)
+     * return false.  Requires `frontierSize` is positive (so the heap is non-empty).
+     */
+    private boolean settleNext() {
+        long entry = heapEntries[0];
+        byte dir = heapDirs[0];
+        removeMin();
+        int id = (int) entry;
+        if (settled(id)) {
+            return false;
+        }
+        int distance = (int) (entry >>> 32);
+        links[id] = dir;
+        // Written after the link, with release semantics, so that snapshots being queried on other
+        //  threads never see this vertex as settled alongside a stale link.
+        PathfindingSnapshot.MARKS.setRelease(marks, id, (byte) (2 * epoch + 1));
+        removeTentative(id);
+        settledCount += 1;
+        frontierSize -= 1;
+        maxSettledDistance = distance;
+        if (settleObserver != null) {
+            settleObserver.accept(id);
+        }
+        relaxingDistance = distance;
+        graph.forEachNeighbor(id, weigher, relaxer);
+        return true;
+    }
+
+    /**
+     * Record a path of weight `distance` to the vertex with ID `id` whose last edge has direction
+     * `dir`, unless that vertex is settled or outside of our region, or this path is no shorter
+     * than the best known path to it.  Snapshots trust nothing about vertices that are merely
+     * discovered, so their marks need no ordering.
+     */
+    private void relax(int id, int dir, int distance) {
+        int mark = marks[id];
+        if (mark == 2 * epoch + 1) {
+            return;
+        }
+        if (mark != 2 * epoch) {
+            if (region != null && !region.test(id)) {
+                return;
+            }
+            marks[id] = (byte) (2 * epoch);
+            frontierSize += 1;
+            putTentative(id, distance);
+        } else {
+            int slot = tentativeSlot(id);
+            if (distance >= tentativeDistances[slot]) {
+                return;
+            }
+            tentativeDistances[slot] = distance;
+        }
+        add(distance, id, dir);
+    }
+
+    /**
+     * Return the slot of our table of tentative distances that holds the vertex with ID `id`, or
+     * the empty slot where it would be inserted if it is not in the table.
+     */
+    private int tentativeSlot(int id) {
+        int mask = tentativeIds.length - 1;
+        int slot = tentativeHome(id, mask);
+        while (tentativeIds[slot] != id && tentativeIds[slot] != -1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Return the slot at which probing for the vertex with ID `id` starts in a table whose
+     * capacity is `mask + 1`.
+     */
+    private static int tentativeHome(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Add the newly discovered vertex with ID `id` to our table of tentative distances, with
+     * tentative distance `distance`, growing the table if `frontierSize` (which must already count
+     * the vertex) requires it.  Requires that the vertex is not already in the table.
+     */
+    private void putTentative(int id, int distance) {
+        if (2 * frontierSize > tentativeIds.length) {
+            growTentative();
+        }
+        int slot = tentativeSlot(id);
+        tentativeIds[slot] = id;
+        tentativeDistances[slot] = distance;
+    }
+
+    /**
+     * Remove the vertex with ID `id` from our table of tentative distances, shifting later entries
+     * of its probe sequence back so that lookups need no tombstones.  Requires that the vertex is
+     * in the table.
+     */
+    private void removeTentative(int id) {
+        int mask = tentativeIds.length - 1;
+        int hole = tentativeSlot(id);
+        assert tentativeIds[hole] == id;
+        for (int slot = (hole + 1) & mask; tentativeIds[slot] != -1; slot = (slot + 1) & mask) {
+            int home = tentativeHome(tentativeIds[slot], mask);
+            // An entry may fill the hole unless its home lies cyclically in (hole, slot].
+            boolean homeAfterHole = (hole <= slot) ? (hole < home && home <= slot)
+                    : (hole < home || home <= slot);
+            if (!homeAfterHole) {
+                tentativeIds[hole] = tentativeIds[slot];
+                tentativeDistances[hole] = tentativeDistances[slot];
+                hole = slot;
+            }
+        }
+        tentativeIds[hole] = -1;
+    }
+
+    /**
+     * Double the capacity of our table of tentative distances, reinserting its entries.
+     */
+    private void growTentative() {
+        int[] oldIds = tentativeIds;
+        int[] oldDistances = tentativeDistances;
+        tentativeIds = new int[2 * oldIds.length];
+        tentativeDistances = new int[2 * oldIds.length];
+        Arrays.fill(tentativeIds, -1);
+        for (int i = 0; i < oldIds.length; ++i) {
+            if (oldIds[i] != -1) {
+                int slot = tentativeSlot(oldIds[i]);
+                tentativeIds[slot] = oldIds[i];
+                tentativeDistances[slot] = oldDistances[i];
+            }
+        }
+    }
+
+    /**
+     * Return a snapshot viewing our current marks and links without copying them, and remember
+     * that they are shared.
+     */
+    private PathfindingSnapshot snapshot() {
+        shared = true;
+        return new PathfindingSnapshot(startId, graph, marks, links, epoch, settledCount);
+    }
+
+    /**
+     * Add an entry for a path of weight `distance` to the vertex with ID `id` whose last edge has
+     * direction `dir` to our heap.
+     */
+    private void add(int distance, int id, int dir) {
+        if (heapSize == heapEntries.length) {
+            heapEntries = Arrays.copyOf(heapEntries, 2 * heapSize);
+            heapDirs = Arrays.copyOf(heapDirs, 2 * heapSize);
+        }
+        long entry = ((long) distance << 32) | id;
+        int i = heapSize;
+        heapSize += 1;
+        while (i > 0 && heapEntries[(i - 1) / 2] > entry) {
+            heapEntries[i] = heapEntries[(i - 1) / 2];
+            heapDirs[i] = heapDirs[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heapEntries[i] = entry;
+        heapDirs[i] = (byte) dir;
+    }
+
+    /**
+     * Remove the smallest entry from our heap.  Requires the heap is non-empty.
+     */
+    private void removeMin() {
+        heapSize -= 1;
+        long entry = heapEntries[heapSize];
+        byte dir = heapDirs[heapSize];
+        int i = 0;
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapEntries[child + 1] < heapEntries[child]) {
+                child += 1;
+            }
+            if (heapEntries[child] >= entry) {
+                break;
+            }
+            heapEntries[i] = heapEntries[child];
+            heapDirs[i] = heapDirs[child];
+            i = child;
+        }
+        heapEntries[i] = entry;
+        heapDirs[i] = dir;
+    }
+}
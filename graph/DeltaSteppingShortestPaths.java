@@ -0,0 +1,727 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Incrementally solves for shortest paths from a starting vertex in an `IntGraph` using the
+ * parallel "delta-stepping" algorithm.  Vertices are grouped into buckets of width `delta` by
+ * tentative distance; the edges of all vertices in the lowest non-empty bucket are relaxed in
+ * parallel, repeating until that bucket stops changing, at which point all of its vertices are
+ * settled.  Distances agree with those found by `ShortestPaths` (though paths may differ between
+ * ties).
+ * <p>
+ * Searches are extended a whole bucket at a time, so an extension may settle more vertices than
+ * requested.  Snapshots only report settled vertices (and the starting vertex), though progress
+ * reports count the vertices that have been reached but not settled as the frontier.  Like
+ * `ShortestPaths`, this keeps its arrays between searches and tells searches apart by epoch, so
+ * that changing the starting point takes O(1) time and a solver can be pooled.  Parallel rounds
+ * reuse the same tasks, so extending a search allocates nothing per round.
+ * <p>
+ * The graph, weigher, and any region predicate must support concurrent queries from multiple
+ * threads.
+ */
+public class DeltaSteppingShortestPaths implements ShortestPathsSolver {
+
+    /**
+     * Relaxation rounds with fewer vertices than this are run on the calling thread, since the
+     * overhead of forking would exceed the work.  Parallel rounds also hand out vertices in chunks
+     * of this size.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    /**
+     * The packed tentative state of a vertex that has not been reached.
+     */
+    private static final long UNREACHED = pack(Integer.MAX_VALUE, -1);
+
+    /**
+     * The graph we are searching for paths in.
+     */
+    private final IntGraph graph;
+
+    /**
+     * Weigher to use in order to query edge weights in our graph.
+     */
+    private final IntWeigher weigher;
+
+    /**
+     * The pool whose threads relax edges in parallel.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The range of tentative distances grouped into each bucket.  Positive.
+     */
+    private final int delta;
+
+    /**
+     * Relax edges in parallel rounds, one per thread of `pool`; the first also relaxes rounds run
+     * on the calling thread.  Created once so that rounds allocate nothing.
+     */
+    private final Relaxer[] relaxers;
+
+    /**
+     * `relaxerTasks[i]` runs `relaxers[i]` on a thread of `pool`.  Reinitialized for each parallel
+     * round rather than recreated.
+     */
+    private final ForkJoinTask<?>[] relaxerTasks;
+
+    /**
+     * Runs every task in `relaxerTasks` and waits for them to finish.  Reinitialized for each
+     * parallel round rather than recreated.
+     */
+    private final ForkJoinTask<?> parallelRound;
+
+    /**
+     * The index of the next chunk (of `PARALLEL_THRESHOLD` entries) of `members` to be claimed by
+     * a relaxer in the current parallel round.
+     */
+    private final AtomicInteger nextChunk;
+
+    /**
+     * The ID of the starting vertex for our current search, or -1 if no starting vertex has yet
+     * been selected.
+     */
+    private int startId;
+
+    /**
+     * `epochs[id] == epoch` if and only if the vertex with ID `id` has been reached by the current
+     * search; the entries of our other per-vertex arrays for other vertices are left over from
+     * earlier searches.  A vertex whose entries are being reset by the thread that first reached it
+     * is marked `-epoch` until they are.
+     */
+    private int[] epochs;
+
+    /**
+     * Identifies the current search in `epochs`.  Always positive.
+     */
+    private int epoch;
+
+    /**
+     * `tentative.get(id)` is the packed distance and predecessor of the shortest known path to
+     * the vertex with ID `id` (see `pack()`), or `UNREACHED`.
+     */
+    private final AtomicLongArray tentative;
+
+    /**
+     * Final distances of settled vertices (-1 for others).
+     */
+    private int[] distances;
+
+    /**
+     * Final predecessors of settled vertices (-1 for others and the start).
+     */
+    private int[] predecessors;
+
+    /**
+     * Settle stamps, as in `PathfindingSnapshot`.  Vertices that have been processed in the
+     * current bucket but not yet settled are stamped -2.
+     */
+    private int[] settleStamps;
+
+    /**
+     * `queuedRound.get(id)` is the most recent relaxation round whose improvements to the vertex
+     * with ID `id` have been recorded in `improved`.
+     */
+    private final AtomicIntegerArray queuedRound;
+
+    /**
+     * The IDs of the vertices whose tentative distances improved during the current round, each
+     * appearing once, in `[0..improvedCount)`.
+     */
+    private final int[] improved;
+
+    /**
+     * The number of entries of `improved` claimed during the current round.
+     */
+    private final AtomicInteger improvedCount;
+
+    /**
+     * `buckets.get(b)` holds IDs of vertices whose tentative distance was in
+     * `[b*delta..(b+1)*delta)` when added, for `b` in `[0..bucketCount)`.  Entries become stale if
+     * a vertex's distance later improves into a lower bucket.  Lists beyond `bucketCount` are
+     * empty and are kept for reuse by later searches.
+     */
+    private final ArrayList<IntList> buckets;
+
+    /**
+     * The number of buckets in use by the current search.
+     */
+    private int bucketCount;
+
+    /**
+     * The index of the lowest bucket that has not been settled.  All paths have been found once
+     * this reaches `bucketCount` (or once every vertex is settled).
+     */
+    private int currentBucket;
+
+    /**
+     * The vertices of the current bucket to be relaxed in the current round.
+     */
+    private final IntList members;
+
+    /**
+     * The vertices processed in the current bucket so far, which will be settled with it.
+     */
+    private final IntList processed;
+
+    /**
+     * The number of vertices settled so far.
+     */
+    private int settledCount;
+
+    /**
+     * The number of vertices reached by the current search so far, as of the end of the last
+     * relaxation round.  Those that are not settled make up its frontier.
+     */
+    private int reachedCount;
+
+    /**
+     * The largest distance from our starting vertex of any settled vertex, or -1 if none are
+     * settled.
+     */
+    private int maxSettledDistance;
+
+    /**
+     * The current relaxation round of the current search (positive after the first round starts).
+     */
+    private int round;
+
+    /**
+     * If not null, only vertices whose IDs satisfy this predicate (and the starting vertex) may be
+     * reached by the current search.
+     */
+    private IntPredicate region;
+
+    /**
+     * If not null, searches stop between relaxation rounds as soon as this token is cancelled.
+     */
+    private volatile CancellationToken cancellation;
+
+    /**
+     * If not null, called with the ID of every vertex we settle.
+     */
+    private IntConsumer settleObserver;
+
+    /**
+     * Whether a snapshot sharing our current arrays has been returned to a client (and not
+     * discarded).  If so, those arrays must not be reused when our starting point changes.
+     */
+    private boolean shared;
+
+    /**
+     * Create a new delta-stepping solver for the graph `graph` whose edge weights are determined by
+     * `weigher`, relaxing edges on the threads of `pool` with buckets of width `delta`.  Requires
+     * `delta` is positive.
+     */
+    public DeltaSteppingShortestPaths(IntGraph graph, IntWeigher weigher, ForkJoinPool pool,
+            int delta) {
+        assert delta > 0;
+        this.graph = graph;
+        this.weigher = weigher;
+        this.pool = pool;
+        this.delta = delta;
+        relaxers = new Relaxer[pool.getParallelism()];
+        relaxerTasks = new ForkJoinTask<?>[relaxers.length];
+        for (int i = 0; i < relaxers.length; ++i) {
+            relaxers[i] = new Relaxer();
+            relaxerTasks[i] = ForkJoinTask.adapt(relaxers[i]);
+        }
+        parallelRound = ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(relaxerTasks));
+        nextChunk = new AtomicInteger();
+        int n = graph.vertexCount();
+        epochs = new int[n];
+        tentative = new AtomicLongArray(n);
+        distances = new int[n];
+        predecessors = new int[n];
+        settleStamps = new int[n];
+        queuedRound = new AtomicIntegerArray(n);
+        improved = new int[n];
+        improvedCount = new AtomicInteger();
+        buckets = new ArrayList<>();
+        members = new IntList();
+        processed = new IntList();
+        reset();
+    }
+
+    /**
+     * Create a new delta-stepping solver for the graph `graph` whose edge weights are determined by
+     * `weigher`, using the common fork-join pool and buckets of width `delta`.  A width equal to
+     * the maximum edge weight keeps the number of rounds per bucket small.  Requires `delta` is
+     * positive.
+     */
+    public DeltaSteppingShortestPaths(IntGraph graph, IntWeigher weigher, int delta) {
+        this(graph, weigher, ForkJoinPool.commonPool(), delta);
+    }
+
+    /**
+     * Return the tentative state of a vertex reached by a path of weight `distance` whose
+     * penultimate vertex has ID `predecessor`, packed so that both can be updated atomically.
+     */
+    private static long pack(int distance, int predecessor) {
+        return ((long) distance << 32) | (predecessor & 0xFFFFFFFFL);
+    }
+
+    private static int distanceOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int predecessorOf(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Clear any intermediate pathfinding results in preparation for finding paths from a new
+     * starting point.  This only advances `epoch` (plus emptying our buckets), except when epochs
+     * are exhausted, or when our arrays are shared with snapshots that have been returned to
+     * clients, in which case fresh arrays are allocated for the snapshots' view.
+     */
+    private void reset() {
+        if (shared) {
+            epochs = new int[epochs.length];
+            distances = new int[distances.length];
+            predecessors = new int[predecessors.length];
+            settleStamps = new int[settleStamps.length];
+            epoch = 0;
+            shared = false;
+        } else if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(epochs, 0);
+            epoch = 0;
+        }
+        epoch += 1;
+        for (int b = 0; b < bucketCount; ++b) {
+            buckets.get(b).clear();
+        }
+        bucketCount = 0;
+        currentBucket = 0;
+        processed.clear();
+        settledCount = 0;
+        reachedCount = 0;
+        maxSettledDistance = -1;
+        round = 0;
+        region = null;
+        startId = -1;
+    }
+
+    @Override
+    public int vertexCount() {
+        return graph.vertexCount();
+    }
+
+    @Override
+    public void setStart(int startId) {
+        reset();
+        this.startId = startId;
+        reach(startId);
+        tentative.set(startId, pack(0, -1));
+        reachedCount = 1;
+        bucket(0).add(startId);
+    }
+
+    /**
+     * Confine the current search to the vertices whose IDs satisfy `inRegion`, which will be
+     * queried concurrently.  Requires that a starting vertex has been set and that the search has
+     * not been extended since.
+     */
+    @Override
+    public void restrictTo(IntPredicate inRegion) {
+        assert startId >= 0 && round == 0;
+        region = inRegion;
+    }
+
+    /**
+     * Make every subsequent extension of our search stop early once `token` is cancelled, or never
+     * stop early if `token` is null.  The token is checked between relaxation rounds, so a stopped
+     * search may leave a bucket partly processed; it resumes from there if extended again.
+     */
+    @Override
+    public void setCancellationToken(CancellationToken token) {
+        cancellation = token;
+    }
+
+    /**
+     * Make subsequent extensions call `observer` with the ID of each vertex they settle (on the
+     * thread extending the search, as each bucket is settled), or stop doing so if `observer` is
+     * null.
+     */
+    @Override
+    public void setSettleObserver(IntConsumer observer) {
+        settleObserver = observer;
+    }
+
+    /**
+     * Return whether our cancellation token (if any) has been cancelled.
+     */
+    private boolean cancelled() {
+        CancellationToken token = cancellation;
+        return token != null && token.isCancelled();
+    }
+
+    @Override
+    public boolean allPathsFound() {
+        // Buckets left over once every vertex is settled only hold stale entries.
+        return startId >= 0
+                && (currentBucket == bucketCount || settledCount == graph.vertexCount());
+    }
+
+    /**
+     * Return a summary of the progress of our current search in O(1) time.  Its frontier size is
+     * the number of vertices that have been reached but not settled, including those processed
+     * in a bucket that has not been settled yet.
+     */
+    @Override
+    public SearchProgress progress() {
+        return new SearchProgress(settledCount, reachedCount - settledCount, maxSettledDistance);
+    }
+
+    /**
+     * Settle whole buckets until at least `maxToSettle` more vertices have been settled (or every
+     * reachable vertex has been), and return a snapshot of our results.  See `ShortestPaths` for
+     * the rest of the contract.
+     */
+    @Override
+    public PathfindingSnapshot extendSearch(int maxToSettle) {
+        assert maxToSettle >= 0;
+        long target = (long) settledCount + maxToSettle;
+        while (settledCount < target && !allPathsFound() && !cancelled()) {
+            settleBucket();
+        }
+        return snapshot();
+    }
+
+    @Override
+    public PathfindingSnapshot extendSearchToCover(PrimitiveIterator.OfInt regionIds) {
+        settleAll(regionIds);
+        return snapshot();
+    }
+
+    @Override
+    public PathfindingSnapshot extendSearchUntil(int... targetIds) {
+        settleAll(Arrays.stream(targetIds).iterator());
+        return snapshot();
+    }
+
+    @Override
+    public PathfindingSnapshot findPathTo(int startId, int dstId) {
+        // As in `ShortestPaths`, a search confined to a region is not reused.
+        if (startId != this.startId || region != null) {
+            setStart(startId);
+        }
+        return extendSearchUntil(dstId);
+    }
+
+    /**
+     * Find the shortest paths from `start` to every vertex in our graph reachable from `start`,
+     * returning an object from which those paths can be queried.
+     */
+    public PathfindingSnapshot findAllPaths(int startId) {
+        setStart(startId);
+        PathfindingSnapshot paths = extendSearch(vertexCount());
+        assert allPathsFound();
+        return paths;
+    }
+
+    @Override
+    public void discardSnapshots() {
+        shared = false;
+    }
+
+    /**
+     * Settle buckets until every vertex whose ID is produced by `ids` has been settled, every
+     * reachable vertex has been, or our cancellation token is cancelled.
+     */
+    private void settleAll(PrimitiveIterator.OfInt ids) {
+        while (ids.hasNext()) {
+            int id = ids.nextInt();
+            while (!settled(id) && !allPathsFound()) {
+                if (cancelled()) {
+                    return;
+                }
+                settleBucket();
+            }
+        }
+    }
+
+    /**
+     * Return whether the current search has settled the vertex with ID `id`.
+     */
+    private boolean settled(int id) {
+        return epochs[id] == epoch && settleStamps[id] >= 0;
+    }
+
+    /**
+     * Run relaxation rounds on the lowest unsettled bucket until it stops changing, then settle
+     * its vertices and move on to the next bucket.  Stops early, leaving the bucket unsettled, if
+     * our cancellation token is cancelled.  Requires `!allPathsFound()`.
+     */
+    private void settleBucket() {
+        IntList bucket = buckets.get(currentBucket);
+        while (bucket.size() > 0) {
+            if (cancelled()) {
+                return;
+            }
+            round += 1;
+            collectMembers(bucket, currentBucket);
+            bucket.clear();
+            relaxAll();
+            distribute();
+        }
+        settle();
+        currentBucket += 1;
+    }
+
+    /**
+     * Return the bucket for tentative distances in `[b*delta..(b+1)*delta)`, bringing it (and any
+     * lower buckets) into use if necessary.
+     */
+    private IntList bucket(int b) {
+        while (bucketCount <= b) {
+            if (bucketCount == buckets.size()) {
+                buckets.add(new IntList());
+            }
+            bucketCount += 1;
+        }
+        return buckets.get(b);
+    }
+
+    /**
+     * Replace the contents of `members` with the distinct vertices in `bucket` whose current
+     * tentative distance still belongs to bucket `b`, and add any that are new to this bucket to
+     * `processed`.
+     */
+    private void collectMembers(IntList bucket, int b) {
+        members.clear();
+        for (int i = 0; i < bucket.size(); ++i) {
+            int id = bucket.get(i);
+            if (distanceOf(tentative.get(id)) / delta != b) {
+                continue;
+            }
+            // Reuse `queuedRound` to skip duplicates; `round` has not been used yet.
+            if (queuedRound.get(id) == round) {
+                continue;
+            }
+            queuedRound.set(id, round);
+            members.add(id);
+            if (settleStamps[id] == -1) {
+                settleStamps[id] = -2;
+                processed.add(id);
+            }
+        }
+        // Start a fresh round for relaxations so that members can be re-queued.
+        round += 1;
+    }
+
+    /**
+     * Relax the outgoing edges of every vertex in `members`, in parallel if there are enough of
+     * them, recording improved vertices in `improved` and counting newly reached vertices in
+     * `reachedCount`.
+     */
+    private void relaxAll() {
+        improvedCount.set(0);
+        int n = members.size();
+        if (n < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < n; ++i) {
+                relaxers[0].relaxEdges(members.get(i));
+            }
+        } else {
+            nextChunk.set(0);
+            for (ForkJoinTask<?> task : relaxerTasks) {
+                task.reinitialize();
+            }
+            parallelRound.reinitialize();
+            pool.invoke(parallelRound);
+        }
+        for (Relaxer relaxer : relaxers) {
+            reachedCount += relaxer.takeReachedCount();
+        }
+    }
+
+    /**
+     * Relax the edge from the vertex with ID `fromId`, whose tentative distance is `fromDistance`,
+     * to its neighbor with ID `toId`, whose weight is `weight`.  Return whether this is the first
+     * path found to that neighbor by the current search.  Safe to call concurrently.
+     */
+    private boolean relax(int fromId, int fromDistance, int toId, int weight) {
+        if (!reach(toId) || settleStamps[toId] >= 0) {
+            return false;
+        }
+        long candidate = pack(fromDistance + weight, fromId);
+        long current = tentative.get(toId);
+        while (distanceOf(candidate) < distanceOf(current)) {
+            if (tentative.compareAndSet(toId, current, candidate)) {
+                if (queuedRound.getAndSet(toId, round) != round) {
+                    improved[improvedCount.getAndIncrement()] = toId;
+                }
+                // Only one thread can replace the state of an unreached vertex.
+                return current == UNREACHED;
+            }
+            current = tentative.get(toId);
+        }
+        return false;
+    }
+
+    /**
+     * Ensure that the vertex with ID `id` belongs to the current search, resetting the entries left
+     * over from earlier searches if it has not been reached yet, and return true; or return false
+     * if it has not been reached and is outside of our region.  Safe to call concurrently: the
+     * thread that claims a vertex resets it, and others wait for it to finish.  The epoch is
+     * written last, with release semantics, as in `ShortestPaths`.
+     */
+    private boolean reach(int id) {
+        int stamp = (int) PathfindingSnapshot.EPOCHS.getAcquire(epochs, id);
+        while (stamp != epoch) {
+            if (stamp == -epoch) {
+                Thread.onSpinWait();
+            } else if (region != null && id != startId && !region.test(id)) {
+                return false;
+            } else if (PathfindingSnapshot.EPOCHS.compareAndSet(epochs, id, stamp, -epoch)) {
+                tentative.set(id, UNREACHED);
+                queuedRound.set(id, 0);
+                distances[id] = -1;
+                predecessors[id] = -1;
+                settleStamps[id] = -1;
+                PathfindingSnapshot.EPOCHS.setRelease(epochs, id, epoch);
+                return true;
+            }
+            stamp = (int) PathfindingSnapshot.EPOCHS.getAcquire(epochs, id);
+        }
+        return true;
+    }
+
+    /**
+     * Move the vertices improved during the last round into the buckets for their new distances.
+     */
+    private void distribute() {
+        int n = improvedCount.get();
+        for (int i = 0; i < n; ++i) {
+            int id = improved[i];
+            bucket(distanceOf(tentative.get(id)) / delta).add(id);
+        }
+    }
+
+    /**
+     * Finalize the distances and predecessors of the vertices in `processed`, stamp them as
+     * settled, and empty `processed`.
+     */
+    private void settle() {
+        for (int i = 0; i < processed.size(); ++i) {
+            int id = processed.get(i);
+            long state = tentative.get(id);
+            distances[id] = distanceOf(state);
+            predecessors[id] = predecessorOf(state);
+            settleStamps[id] = settledCount;
+            settledCount += 1;
+            maxSettledDistance = Math.max(maxSettledDistance, distances[id]);
+            if (settleObserver != null) {
+                settleObserver.accept(id);
+            }
+        }
+        processed.clear();
+    }
+
+    /**
+     * Return a snapshot viewing our current results without copying them.
+     */
+    private PathfindingSnapshot snapshot() {
+        shared = true;
+        return new PathfindingSnapshot(startId, epochs, epoch, distances, predecessors,
+                settleStamps, settledCount);
+    }
+
+    /**
+     * Relaxes the edges reported by `graph` out of one vertex at a time.  Each thread relaxing
+     * edges uses its own instance.  When run, relaxes the edges of chunks of `members` that no
+     * other relaxer has claimed, until none are left.
+     */
+    private class Relaxer implements IntEdgeVisitor, Runnable {
+
+        /**
+         * The ID and tentative distance of the vertex whose edges are being relaxed.
+         */
+        private int fromId;
+        private int fromDistance;
+
+        /**
+         * The number of vertices first reached by this relaxer since `takeReachedCount()` was
+         * last called.
+         */
+        private int reached;
+
+        /**
+         * Relax the outgoing edges of the vertex with ID `id`.
+         */
+        void relaxEdges(int id) {
+            fromId = id;
+            fromDistance = distanceOf(tentative.get(id));
+            graph.forEachNeighbor(id, weigher, this);
+        }
+
+        /**
+         * Return the number of vertices first reached by this relaxer since the last call, and
+         * reset it.  Requires this relaxer is not running.
+         */
+        int takeReachedCount() {
+            int count = reached;
+            reached = 0;
+            return count;
+        }
+
+        @Override
+        public void run() {
+            int n = members.size();
+            int start = nextChunk.getAndIncrement() * PARALLEL_THRESHOLD;
+            while (start < n) {
+                int end = Math.min(n, start + PARALLEL_THRESHOLD);
+                for (int i = start; i < end; ++i) {
+                    relaxEdges(members.get(i));
+                }
+                start = nextChunk.getAndIncrement() * PARALLEL_THRESHOLD;
+            }
+        }
+
+        @Override
+        public void visit(int endId, int dir, int weight) {
+            if (relax(fromId, fromDistance, endId, weight)) {
+                reached += 1;
+            }
+        }
+    }
+
+    /**
+     * A growable list of `int`s.
+     */
+    private static class IntList {
+
+        private int[] elements = new int[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int i) {
+            return elements[i];
+        }
+
+        void add(int x) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, 2 * size);
+            }
+            elements[size] = x;
+            size += 1;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
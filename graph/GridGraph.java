@@ -0,0 +1,16 @@
+package graph;
+
+/**
+ * An `IntGraph` whose edges are determined by their direction alone, as in a grid of pixels: the
+ * vertex that an edge leading to a given vertex comes from can be recovered from that edge's
+ * direction.  This lets solvers record a path's penultimate vertex as a direction, which takes a
+ * byte rather than a whole vertex ID.  Directions must be in `[0..15)`.
+ */
+public interface GridGraph extends IntGraph {
+
+    /**
+     * Return the ID of the vertex whose edge in direction `dir` leads to the vertex with ID `id`.
+     * Requires that such an edge exists.
+     */
+    int predecessorId(int id, int dir);
+}
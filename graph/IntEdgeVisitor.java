@@ -0,0 +1,14 @@
+package graph;
+
+/**
+ * Receives the edges leaving a vertex from `IntGraph.forEachNeighbor()`, described by primitive
+ * values so that no objects need to be allocated per edge.
+ */
+public interface IntEdgeVisitor {
+
+    /**
+     * Visit the edge leading to the vertex with ID `endId` in the graph-specific direction `dir`,
+     * whose weight is `weight`.
+     */
+    void visit(int endId, int dir, int weight);
+}
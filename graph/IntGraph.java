@@ -0,0 +1,21 @@
+package graph;
+
+/**
+ * A directed graph whose vertices are labeled by integer IDs in `[0..vertexCount())` and whose
+ * edges can be enumerated without allocating any objects.  Each edge leaving a vertex is
+ * identified by a small non-negative integer "direction" whose meaning is defined by the graph.
+ * This complements the object-based `Graph` interface for use on the hot paths of solvers.
+ */
+public interface IntGraph {
+
+    /**
+     * Return the number of vertices in this graph.
+     */
+    int vertexCount();
+
+    /**
+     * Call `visitor.visit()` once for each edge leaving the vertex with ID `id`, passing the ID of
+     * the vertex it leads to, its direction, and its weight according to `weigher`.
+     */
+    void forEachNeighbor(int id, IntWeigher weigher, IntEdgeVisitor visitor);
+}
@@ -0,0 +1,190 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A min priority queue of distinct integer elements in `[0..capacity)`, implemented using a binary
+ * heap stored in parallel `int` arrays paired with a direct-addressed position table.  Unlike
+ * `HeapMinQueue<Integer>`, no operation boxes its arguments or allocates memory, and changing the
+ * priority of an element costs O(log n).
+ */
+public class IntHeapMinQueue implements IntMinQueue {
+
+    /**
+     * `heap[i]` is the element stored in slot `i` of the heap.  Only slots in `[0..size)` are
+     * meaningful.
+     */
+    private final int[] heap;
+
+    /**
+     * `priorities[i]` is the priority of the element stored in slot `i` of the heap.  Satisfies
+     * `priorities[i] >= priorities[(i-1)/2]` for all `i` in `[1..size)`.
+     */
+    private final int[] priorities;
+
+    /**
+     * `positions[key]` is the heap slot holding element `key`, or -1 if `key` is not in this
+     * queue.  Satisfies `heap[positions[key]] == key` for every element `key` in the queue.
+     */
+    private final int[] positions;
+
+    /**
+     * The number of elements contained in this queue.
+     */
+    private int size;
+
+    /**
+     * Assert that our class invariant is satisfied.  Returns true if it is (or if assertions are
+     * disabled).  Note that this is O(n), so it is only checked on `clear()`.
+     */
+    private boolean checkInvariant() {
+        for (int i = 1; i < size; ++i) {
+            assert priorities[i] >= priorities[(i - 1) / 2];
+        }
+        for (int i = 0; i < size; ++i) {
+            assert positions[heap[i]] == i;
+        }
+        return true;
+    }
+
+    /**
+     * Create an empty queue capable of holding the elements `[0..capacity)`.
+     */
+    public IntHeapMinQueue(int capacity) {
+        heap = new int[capacity];
+        priorities = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+        size = 0;
+        assert checkInvariant();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    @Override
+    public int minPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return priorities[0];
+    }
+
+    @Override
+    public void addOrUpdate(int key, int priority) {
+        int k = positions[key];
+        if (k < 0) {
+            // Add to the end of the heap, then restore heap order
+            k = size;
+            size += 1;
+            heap[k] = key;
+            positions[key] = k;
+            priorities[k] = priority;
+            bubbleUp(k);
+        } else {
+            int oldPriority = priorities[k];
+            priorities[k] = priority;
+            if (priority < oldPriority) {
+                bubbleUp(k);
+            } else {
+                bubbleDown(k);
+            }
+        }
+    }
+
+    @Override
+    public int remove() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int removed = heap[0];
+        positions[removed] = -1;
+        size -= 1;
+        if (size > 0) {
+            // Move the last entry to the root, then restore heap order
+            heap[0] = heap[size];
+            priorities[0] = priorities[size];
+            positions[heap[0]] = 0;
+            bubbleDown(0);
+        }
+        return removed;
+    }
+
+    /**
+     * Remove all elements from this queue (making it empty).  Runs in time proportional to the
+     * number of elements removed, not to the capacity.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+        assert checkInvariant();
+    }
+
+    /**
+     * Move the entry at slot `k` up the heap until its parent's priority is no greater than its
+     * own.  Rather than swapping at each level, parents are shifted down and the entry is written
+     * once at its final slot.
+     */
+    private void bubbleUp(int k) {
+        int key = heap[k];
+        int priority = priorities[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            heap[k] = heap[parent];
+            priorities[k] = priorities[parent];
+            positions[heap[k]] = k;
+            k = parent;
+        }
+        heap[k] = key;
+        priorities[k] = priority;
+        positions[key] = k;
+    }
+
+    /**
+     * Move the entry at slot `k` down the heap until neither child has a smaller priority than its
+     * own.  If the two children have the same priority, the left one is preferred.
+     */
+    private void bubbleDown(int k) {
+        int key = heap[k];
+        int priority = priorities[k];
+        int c = 2 * k + 1;
+        while (c < size) {
+            if (c + 1 < size && priorities[c + 1] < priorities[c]) {
+                c += 1;
+            }
+            if (priority <= priorities[c]) {
+                break;
+            }
+            heap[k] = heap[c];
+            priorities[k] = priorities[c];
+            positions[heap[k]] = k;
+            k = c;
+            c = 2 * k + 1;
+        }
+        heap[k] = key;
+        priorities[k] = priority;
+        positions[key] = k;
+    }
+}
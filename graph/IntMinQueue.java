@@ -0,0 +1,60 @@
+package graph;
+
+/**
+ * A min priority queue of distinct integer elements in the range `[0..capacity)` associated with
+ * (extrinsic) integer priorities.  This is a primitive specialization of `MinQueue<Integer>`
+ * intended for vertex IDs; implementations must not allocate memory in any of these operations.
+ */
+interface IntMinQueue {
+    /**
+     * Create an empty queue capable of holding the elements `[0..capacity)` that is suited to
+     * ordering a search whose edges are weighed by `weigher`.  Bounded integer weights let a bucket
+     * queue replace a heap's O(log n) comparisons.
+     */
+    static IntMinQueue forWeigher(int capacity, Weigher<?> weigher) {
+        int maxWeight = weigher.maxWeight();
+        return (maxWeight >= 0) ? new BucketMinQueue(capacity, maxWeight)
+                : new IntHeapMinQueue(capacity);
+    }
+
+    /**
+     * Return whether this queue contains no elements.
+     */
+    boolean isEmpty();
+
+    /**
+     * Return the number of elements contained in this queue.
+     */
+    int size();
+
+    /**
+     * Return an element associated with the smallest priority in this queue.  This is the same
+     * element that would be removed by a call to `remove()` (assuming no mutations in between).
+     * Throws NoSuchElementException if this queue is empty.
+     */
+    int get();
+
+    /**
+     * Return the minimum priority associated with an element in this queue.  Throws
+     * NoSuchElementException if this queue is empty.
+     */
+    int minPriority();
+
+    /**
+     * If `key` is already contained in this queue, change its associated priority to `priority`.
+     * Otherwise, add it to this queue with that priority.  Requires `key` is in `[0..capacity)`.
+     */
+    void addOrUpdate(int key, int priority);
+
+    /**
+     * Remove and return the element associated with the smallest priority in this queue.  If
+     * multiple elements are tied for the smallest priority, an arbitrary one will be removed.
+     * Throws NoSuchElementException if this queue is empty.
+     */
+    int remove();
+
+    /**
+     * Remove all elements from this queue (making it empty).
+     */
+    void clear();
+}
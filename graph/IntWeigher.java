@@ -0,0 +1,14 @@
+package graph;
+
+/**
+ * Provides integer weights on the edges of an `IntGraph`, identifying each edge by its source
+ * vertex and its direction (as defined by that graph) rather than by an Edge object.
+ */
+public interface IntWeigher {
+
+    /**
+     * Return the weight of the edge leaving the vertex with ID `startId` in direction `dir`.
+     * Requires that such an edge exists.
+     */
+    int weight(int startId, int dir);
+}
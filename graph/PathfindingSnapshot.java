@@ -1,36 +1,103 @@
 package graph;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.IntConsumer;
 
+/**
+ * The (possibly partial) results of finding shortest paths from a starting vertex.  A snapshot may
+ * be a read-only view of a solver's storage rather than a copy of it; such views are never
+ * affected by vertices that the solver settles after the snapshot was taken, except for views of
+ * a `CompactShortestPaths` solver (see `CompactShortestPaths`).
+ * <p>
+ * A snapshot that has been safely handed to another thread may be queried there while its solver
+ * keeps extending the search, without locking: the paths it reports to settled vertices are exact.
+ * Solvers make this possible by writing the entry that marks a vertex as belonging to the current
+ * search (its epoch or mark) last, with release semantics, and snapshots read it first, with
+ * acquire semantics, so a vertex never appears current with entries left over from an earlier
+ * search.  Paths to unsettled vertices carry no such guarantee.
+ */
 public class PathfindingSnapshot {
 
+    /**
+     * Accesses elements of `epochs` arrays with memory ordering semantics.
+     */
+    static final VarHandle EPOCHS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * Accesses elements of `marks` arrays with memory ordering semantics.
+     */
+    static final VarHandle MARKS = MethodHandles.arrayElementVarHandle(byte[].class);
+
     /**
      * The ID of the starting vertex for the pathfinding operation that produced this snapshot.
      */
     private final int startId;
 
+    /**
+     * If not null, the entries of the other arrays for the vertex with ID `id` are only meaningful
+     * if `epochs[id] == epoch`; otherwise no path to that vertex is known.  Lets a solver reuse its
+     * arrays without clearing them.  May be shared with the solver that produced this snapshot.
+     */
+    private final int[] epochs;
+
+    /**
+     * The epoch of the search that produced this snapshot (unused if `epochs` and `marks` are
+     * null).
+     */
+    private final int epoch;
+
     /**
      * `distances[id]` is the weight of the shortest known path from the starting vertex to the
-     * vertex with ID `id`, or -1 if no such path is currently known.
+     * vertex with ID `id`, or -1 if no such path is currently known.  May be shared with the solver
+     * that produced this snapshot.
      */
     private final int[] distances;
 
     /**
      * `predecessors[id]` is the ID of the penultimate vertex along the shortest known path from the
      * starting vertex to the vertex with ID `id`, or -1 if `id==startId` or if no such path is
-     * currently known.
+     * currently known.  May be shared with the solver that produced this snapshot.
      */
     private final int[] predecessors;
 
     /**
-     * `settledIds[id]` is true if the shortest path has been determined from the starting vertex to
-     * the vertex with ID `id`.
+     * The shortest path has been determined from the starting vertex to the vertex with ID `id` if
+     * and only if `0 <= settleStamps[id] < settledCount`.  Stamps of vertices settled after this
+     * snapshot was taken are at least `settledCount`.  May be shared with the solver that produced
+     * this snapshot.
+     */
+    private final int[] settleStamps;
+
+    /**
+     * The number of vertices settled when this snapshot was taken.
+     */
+    private final int settledCount;
+
+    /**
+     * If not null, this snapshot views the link-coded state of a `CompactShortestPaths` solver
+     * instead of `distances`, `predecessors`, and `settleStamps` (which are then null).
+     * `marks[id]` is `2 * epoch` if the vertex with ID `id` has been discovered but not settled,
+     * and `2 * epoch + 1` if it has been settled.  Shared with that solver.
      */
-    private final BitSet settledIds;
+    private final byte[] marks;
+
+    /**
+     * If `marks` is not null, `links[id]` is the direction (in `grid`) of the edge from the
+     * predecessor of the settled vertex with ID `id` to that vertex.  Otherwise null.  Shared with
+     * the solver that produced this snapshot.
+     */
+    private final byte[] links;
+
+    /**
+     * The graph in which `links` are interpreted, or null if `marks` is null.
+     */
+    private final GridGraph grid;
 
     /**
      * Create a new snapshot of the progress of finding shortest paths from a vertex with ID
@@ -43,9 +110,70 @@ public class PathfindingSnapshot {
     public PathfindingSnapshot(int startId, int[] distances, int[] predecessors,
             BitSet settledIds) {
         this.startId = startId;
+        epochs = null;
+        epoch = 0;
         this.predecessors = Arrays.copyOf(predecessors, predecessors.length);
         this.distances = Arrays.copyOf(distances, distances.length);
-        this.settledIds = (BitSet) settledIds.clone();
+        settleStamps = new int[distances.length];
+        Arrays.fill(settleStamps, -1);
+        settledIds.stream().forEach(id -> settleStamps[id] = 0);
+        settledCount = settledIds.cardinality();
+        marks = null;
+        links = null;
+        grid = null;
+    }
+
+    /**
+     * Create a snapshot that views (without copying) the state of a solver finding shortest paths
+     * from the vertex with ID `startId` after it has settled `settledCount` vertices.  See the
+     * corresponding fields for the interpretation of the arguments.  The solver must never modify
+     * the distance, predecessor, or stamp of a vertex once it is settled, must stamp vertices it
+     * settles later with values no less than `settledCount`, and must not reuse these arrays for
+     * a different starting vertex.
+     */
+    PathfindingSnapshot(int startId, int[] distances, int[] predecessors, int[] settleStamps,
+            int settledCount) {
+        this(startId, null, 0, distances, predecessors, settleStamps, settledCount);
+    }
+
+    /**
+     * Create a snapshot that views (without copying) the state of a solver as above, except that
+     * the entries for a vertex with ID `id` are only meaningful if `epochs[id] == epoch` (any other
+     * vertex has not been discovered).  The solver must not modify entries stamped with `epoch`
+     * for a different starting vertex.
+     */
+    PathfindingSnapshot(int startId, int[] epochs, int epoch, int[] distances, int[] predecessors,
+            int[] settleStamps, int settledCount) {
+        this.startId = startId;
+        this.epochs = epochs;
+        this.epoch = epoch;
+        this.distances = distances;
+        this.predecessors = predecessors;
+        this.settleStamps = settleStamps;
+        this.settledCount = settledCount;
+        marks = null;
+        links = null;
+        grid = null;
+    }
+
+    /**
+     * Create a snapshot that views (without copying) the state of a `CompactShortestPaths` solver
+     * searching `grid` from the vertex with ID `startId`, after it has settled `settledCount`
+     * vertices in the search identified by `epoch`.  See the corresponding fields for the
+     * interpretation of `marks` and `links`.
+     */
+    PathfindingSnapshot(int startId, GridGraph grid, byte[] marks, byte[] links, int epoch,
+            int settledCount) {
+        this.startId = startId;
+        this.grid = grid;
+        this.marks = marks;
+        this.links = links;
+        this.epoch = epoch;
+        this.settledCount = settledCount;
+        epochs = null;
+        distances = null;
+        predecessors = null;
+        settleStamps = null;
     }
 
     /**
@@ -54,32 +182,66 @@ public class PathfindingSnapshot {
      * path's distance will be the shortest possible.  Throws IllegalArgumentException if the
      * destination vertex has not been discovered.  Note that, while the returned path may not be
      * the unique path with that distance, an instance of this class will always return the same
-     * path when queried for the same destination.
+     * path when queried for the same settled destination.  If the solver that produced this
+     * snapshot is still being extended (possibly on another thread), the paths to unsettled
+     * destinations may improve between queries.  Snapshots of a `CompactShortestPaths` solver only
+     * know the paths to settled vertices, and throw IllegalArgumentException for other
+     * destinations.
      */
     public List<Integer> pathTo(int dstId) {
         // TODO A6.1b: Implement this method as specified (hint: remember that reconstructing paths
         //  from back pointers was a lecture exercise).
 
-        if (!discovered(dstId)) {
+        // Collect the path backwards (appending is O(1)), then reverse it
+        List<Integer> path = new ArrayList<>();
+        forEachOnPathTo(dstId, path::add);
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Call `action` on the ID of each vertex along the shortest known path from the starting
+     * vertex to the vertex with ID `dstId` (inclusive), in _reverse_ order: from the destination
+     * back to the start.  This walks the predecessor links directly, so it takes time proportional
+     * to the length of the path and allocates nothing.  Throws IllegalArgumentException if the
+     * destination vertex has not been discovered.  The same caveats as for `pathTo()` apply.
+     */
+    public void forEachOnPathTo(int dstId, IntConsumer action) {
+        if (!discovered(dstId) || (marks != null && !settled(dstId))) {
             throw new IllegalArgumentException("Destination vertex has not been discovered.");
         }
-        List<Integer> path = new ArrayList<>();
         int currentId = dstId;
         while (currentId != startId) {
-            path.add(0, currentId); // Add the current vertex ID to the beginning of the path
-            currentId = predecessors[currentId]; // Move to the predecessor vertex
+            action.accept(currentId);
+            currentId = predecessorOf(currentId); // Move to the predecessor vertex
         }
-        path.add(0, startId); // Add the starting vertex ID to the beginning of the path
-        return path;
+        action.accept(startId);
     }
 
     /**
      * Return the total weight along the shortest known path from the starting vertex to the vertex
      * with ID `dstId`.  If no path is known, return -1.  Requires `dstId` is a valid vertex ID in
-     * the graph.
+     * the graph.  As with `pathTo()`, the result is only fixed if the destination is settled.
+     * Snapshots of a `CompactShortestPaths` solver do not keep distances, so they return -1 for
+     * every vertex but the start.
      */
     public int distanceTo(int dstId) {
-        return distances[dstId];
+        if (marks != null) {
+            return (dstId == startId) ? 0 : -1;
+        }
+        return current(dstId) ? distances[dstId] : -1;
+    }
+
+    /**
+     * Return the ID of the penultimate vertex along the shortest known path from the starting
+     * vertex to the vertex with ID `id`, or -1 if `id` is the starting vertex or has not been
+     * discovered.  The same caveats as for `pathTo()` apply.
+     */
+    public int predecessorOf(int id) {
+        if (marks != null) {
+            return (id != startId && settled(id)) ? grid.predecessorId(id, links[id]) : -1;
+        }
+        return current(id) ? predecessors[id] : -1;
     }
 
     /**
@@ -94,7 +256,11 @@ public class PathfindingSnapshot {
      * Return whether a path is known from the starting vertex to the vertex with ID `id`.
      */
     public boolean discovered(int id) {
-        return predecessors[id] >= 0 || id == startId;
+        if (marks != null) {
+            int mark = mark(id);
+            return mark == 2 * epoch || mark == 2 * epoch + 1;
+        }
+        return current(id) && (predecessors[id] >= 0 || id == startId);
     }
 
     /**
@@ -102,6 +268,35 @@ public class PathfindingSnapshot {
      * to the vertex with ID `id`.
      */
     public boolean settled(int id) {
-        return settledIds.get(id);
+        if (marks != null) {
+            return mark(id) == 2 * epoch + 1;
+        }
+        if (!current(id)) {
+            return false;
+        }
+        // Read only after `current()`, whose acquire orders it after the stamp's reset.
+        int stamp = settleStamps[id];
+        return stamp >= 0 && stamp < settledCount;
+    }
+
+    /**
+     * Return whether our arrays' entries for the vertex with ID `id` belong to our search.
+     */
+    private boolean current(int id) {
+        return epochs == null || (int) EPOCHS.getAcquire(epochs, id) == epoch;
+    }
+
+    /**
+     * Return the mark of the vertex with ID `id`.  Requires `marks` is not null.
+     */
+    private byte mark(int id) {
+        return (byte) MARKS.getAcquire(marks, id);
+    }
+
+    /**
+     * Return the number of vertices to which a path with the shortest possible distance is known.
+     */
+    public int settledCount() {
+        return settledCount;
     }
 }
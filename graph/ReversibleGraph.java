@@ -0,0 +1,16 @@
+package graph;
+
+/**
+ * A directed graph that can also enumerate the edges _entering_ each vertex, enabling searches
+ * that proceed backward from a destination.
+ */
+public interface ReversibleGraph<VertexType extends Vertex<EdgeType>, EdgeType extends Edge>
+        extends Graph<VertexType> {
+
+    /**
+     * Return an object supporting iteration over all of the edges connecting another vertex in the
+     * graph to the vertex with ID `id`.  That vertex serves as the "destination" vertex for each
+     * such edge.
+     */
+    Iterable<EdgeType> incomingEdges(int id);
+}
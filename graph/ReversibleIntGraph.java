@@ -0,0 +1,15 @@
+package graph;
+
+/**
+ * An `IntGraph` that can also enumerate the edges _entering_ each vertex without allocating any
+ * objects, enabling searches that proceed backward from a destination.  This complements the
+ * object-based `ReversibleGraph` interface for use on the hot paths of solvers.
+ */
+public interface ReversibleIntGraph extends IntGraph {
+
+    /**
+     * Call `visitor.visit()` once for each edge entering the vertex with ID `id`, passing the ID
+     * of the vertex it comes from, its direction, and its weight according to `weigher`.
+     */
+    void forEachPredecessor(int id, IntWeigher weigher, IntEdgeVisitor visitor);
+}
@@ -0,0 +1,11 @@
+package graph;
+
+/**
+ * A lightweight summary of how far a shortest-paths search has progressed, which a solver can
+ * report in O(1) time.  `settledCount` is the number of vertices whose shortest paths are known,
+ * `frontierSize` is the number of vertices discovered but not yet settled, and
+ * `maxSettledDistance` is the largest distance of any settled vertex (or -1 if none are settled).
+ */
+public record SearchProgress(int settledCount, int frontierSize, int maxSettledDistance) {
+
+}
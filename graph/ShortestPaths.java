@@ -1,14 +1,17 @@
 package graph;
 
 import java.util.Arrays;
-import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 /**
  * Supports incrementally solving for shortest paths from a starting vertex in a graph with vertices
  * of type `VertexType` and edges of type `EdgeType`.  Can provide preliminary pathfinding results
  * and report progress towards a full solution.
  */
-public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends Edge> {
+public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends Edge>
+        implements ShortestPathsSolver {
 
     /**
      * The graph we are searching for paths in.
@@ -20,37 +23,110 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
      */
     private final Weigher<EdgeType> weigher;
 
+    /**
+     * Our graph viewed as an `IntGraph`, or null if it does not support primitive traversal (or
+     * our weigher cannot weigh its edges by direction).  When available, edges are relaxed through
+     * this view without allocating Vertex or Edge objects.
+     */
+    private final IntGraph intGraph;
+
+    /**
+     * Our weigher viewed as an `IntWeigher`.  Null if and only if `intGraph` is null.
+     */
+    private final IntWeigher intWeigher;
+
+    /**
+     * Relaxes the edges reported by `intGraph` out of `relaxingId`.  Created once so that settling
+     * a vertex allocates nothing.
+     */
+    private final IntEdgeVisitor relaxer;
+
+    /**
+     * The ID of the vertex whose edges `relaxer` is currently relaxing.
+     */
+    private int relaxingId;
+
     /**
      * The ID of the starting vertex for our current search, or -1 if no starting vertex has yet
      * been selected.
      */
     private int startId;
 
+    /**
+     * `epochs[id] == epoch` if and only if a path from our current starting vertex to the vertex
+     * with ID `id` is known.  The entries of `distances`, `predecessors`, and `settleStamps` for
+     * other vertices are left over from earlier searches and must be ignored, which lets a new
+     * search start without clearing those arrays.
+     */
+    private int[] epochs;
+
+    /**
+     * Identifies the current search in `epochs`.  Always positive.
+     */
+    private int epoch;
+
     /**
      * `distances[id]` is the weight of the shortest known path from our starting vertex to the
-     * vertex with ID `id`, or -1 if no such path is currently known.
+     * vertex with ID `id` (only meaningful if that vertex is current in `epochs`).  Never modified
+     * for a vertex once it is settled.
      */
-    private final int[] distances;
+    private int[] distances;
 
     /**
      * `predecessors[id]` is the ID of the penultimate vertex along the shortest known path from our
-     * starting vertex to the vertex with ID `id`, or -1 if `id==startId` or if no such path is
-     * currently known.
+     * starting vertex to the vertex with ID `id`, or -1 if `id==startId` (only meaningful if that
+     * vertex is current in `epochs`).  Never modified for a vertex once it is settled.
      */
-    private final int[] predecessors;
+    private int[] predecessors;
 
     /**
      * Queue of vertex IDs currently known to be reachable from the starting vertex but for whom the
      * shortest possible path has not yet been determined.  Ordered by weight of the shortest known
-     * path from the starting vertex.
+     * path from the starting vertex.  If our weigher declares a maximum edge weight, this is a
+     * bucket queue; otherwise it is a binary heap.
+     */
+    private final IntMinQueue frontier;
+
+    /**
+     * If not null, only vertices whose IDs satisfy this predicate (and the starting vertex) may be
+     * discovered by the current search; paths are then the shortest that stay within that region.
+     */
+    private IntPredicate region;
+
+    /**
+     * `settleStamps[id]` is the number of vertices that were settled before the vertex with ID
+     * `id`, or -1 if the shortest path to that vertex has not yet been determined (only meaningful
+     * if that vertex is current in `epochs`).  Snapshots use these stamps to ignore vertices
+     * settled after they were taken.
+     */
+    private int[] settleStamps;
+
+    /**
+     * The number of vertices whose shortest paths from our starting vertex have been determined.
+     */
+    private int settledCount;
+
+    /**
+     * The largest distance from our starting vertex of any settled vertex, or -1 if none are
+     * settled.  Maintained incrementally so that progress can be reported in O(1) time.
+     */
+    private int maxSettledDistance;
+
+    /**
+     * If not null, searches stop settling vertices as soon as this token is cancelled.
+     */
+    private volatile CancellationToken cancellation;
+
+    /**
+     * If not null, called with the ID of every vertex we settle.
      */
-    private final MinQueue<Integer> frontier;
+    private IntConsumer settleObserver;
 
     /**
-     * `settledIds.get(id)` is true if the shortest path has been determined from our starting
-     * vertex to the vertex with ID `id`.
+     * Whether a snapshot sharing our current arrays has been returned to a client (and not
+     * discarded).  If so, those arrays must not be reused when our starting point changes.
      */
-    private final BitSet settledIds;
+    private boolean shared;
 
     /**
      * Create a new shortest paths solver for the graph `graph` whose edge weights are determined by
@@ -59,25 +135,46 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
     public ShortestPaths(Graph<VertexType> graph, Weigher<EdgeType> weigher) {
         this.graph = graph;
         this.weigher = weigher;
+        if (graph instanceof IntGraph g && weigher instanceof IntWeigher w) {
+            intGraph = g;
+            intWeigher = w;
+        } else {
+            intGraph = null;
+            intWeigher = null;
+        }
+        relaxer = (endId, dir, weight) -> relax(relaxingId, endId, weight);
+        epochs = new int[graph.vertexCount()];
         distances = new int[graph.vertexCount()];
         predecessors = new int[graph.vertexCount()];
-        settledIds = new BitSet(graph.vertexCount());
-
-        // TODO A6.3f: Replace this with a `HeapMinQueue` after implementing and testing the latter.
-        frontier = new RefMinQueue<>();
+        settleStamps = new int[graph.vertexCount()];
+        frontier = IntMinQueue.forWeigher(graph.vertexCount(), weigher);
 
         reset();
     }
 
     /**
      * Clear any intermediate pathfinding results in preparation for finding paths from a new
-     * starting point.
+     * starting point.  This only advances `epoch` (plus emptying the frontier), so it takes O(1)
+     * time apart from the frontier.  If our arrays are shared with snapshots that have been
+     * returned to clients, fresh arrays are allocated instead so that those snapshots remain valid.
      */
     private void reset() {
-        Arrays.fill(distances, -1);
-        Arrays.fill(predecessors, -1);
+        if (shared) {
+            epochs = new int[epochs.length];
+            distances = new int[distances.length];
+            predecessors = new int[predecessors.length];
+            settleStamps = new int[settleStamps.length];
+            epoch = 0;
+            shared = false;
+        } else if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(epochs, 0);
+            epoch = 0;
+        }
+        epoch += 1;
         frontier.clear();
-        settledIds.clear();
+        settledCount = 0;
+        maxSettledDistance = -1;
+        region = null;
         startId = -1;
     }
 
@@ -86,12 +183,56 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
      * point are known.
      */
     public int settledCount() {
-        return settledIds.cardinality();
+        return settledCount;
+    }
+
+    /**
+     * Return a summary of the progress of our current search.  Runs in O(1) time, so it is cheap
+     * enough to call after every batch of a search no matter how large the graph is.
+     */
+    @Override
+    public SearchProgress progress() {
+        return new SearchProgress(settledCount, frontier.size(), maxSettledDistance);
+    }
+
+    /**
+     * Declare that no snapshot previously returned by this solver will be queried again, so that
+     * the next change of starting point may reuse our storage instead of allocating more.  This
+     * lets a solver be kept in a pool and reused for many searches of a large graph.
+     */
+    @Override
+    public void discardSnapshots() {
+        shared = false;
+    }
+
+    /**
+     * Make every subsequent extension of our search stop early (returning the progress made so
+     * far) once `token` is cancelled, or never stop early if `token` is null.  The token is checked
+     * before each vertex is settled, so a cancelled search stops promptly even in the middle of a
+     * large batch.  A stopped search may be resumed if a different (or no) token is set.
+     */
+    @Override
+    public void setCancellationToken(CancellationToken token) {
+        cancellation = token;
+    }
+
+    @Override
+    public void setSettleObserver(IntConsumer observer) {
+        settleObserver = observer;
+    }
+
+    /**
+     * Return whether our cancellation token (if any) has been cancelled.
+     */
+    private boolean cancelled() {
+        CancellationToken token = cancellation;
+        return token != null && token.isCancelled();
     }
 
     /**
      * Return the total number of vertices in the graph we are finding shortest paths in.
      */
+    @Override
     public int vertexCount() {
         return graph.vertexCount();
     }
@@ -100,6 +241,7 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
      * Return whether shortest paths have been found for all vertices reachable from the current
      * starting point.  Returns false if no starting point has been set.
      */
+    @Override
     public boolean allPathsFound() {
         // The second condition is needed in case we were just constructed and have no starting
         //  point.
@@ -110,13 +252,27 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
      * Change our starting point to `start`, discarding any pathfinding results from any previous
      * starting point.
      */
+    @Override
     public void setStart(int startId) {
         reset();
         this.startId = startId;
-        distances[startId] = 0;
+        discover(startId, -1, 0);
         frontier.addOrUpdate(startId, 0);
     }
 
+    /**
+     * Confine the current search to the vertices whose IDs satisfy `inRegion`, so that it only
+     * finds the shortest paths that stay within that region (such as a corridor around an
+     * approximate path).  Vertices outside of the region are never discovered.  Applies until the
+     * starting point is next changed.  Requires that a starting vertex has been set and that no
+     * vertices besides it have been discovered yet.
+     */
+    @Override
+    public void restrictTo(IntPredicate inRegion) {
+        assert startId >= 0 && settledCount == 0 && frontier.size() == 1;
+        region = inRegion;
+    }
+
     /**
      * Find the shortest paths from `start` to every vertex in our graph reachable from `start`,
      * returning an object from which those paths can be queried.
@@ -137,47 +293,175 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
      * If fewer than `maxToSettle` reachable vertices do not have the shortest paths to them known,
      * then this method returns when shortest paths have been found for all reachable vertices in
      * the graph.  If multiple vertices tie for being the next closest, it is unspecified which will
-     * have its shortest path found first.  Requires `maxToSettle` is non-negative and that a
+     * have its shortest path found first.  Returns early if our cancellation token (see
+     * `setCancellationToken()`) is cancelled.  Requires `maxToSettle` is non-negative and that a
      * starting vertex has been set.
+     * <p>
+     * The returned snapshot shares storage with this solver rather than copying it, so this method
+     * allocates O(1) memory regardless of the graph's size.  Vertices settled by later extensions
+     * are not reported as settled by the snapshot, but its distances and paths to frontier
+     * vertices may reflect later progress.
      */
+    @Override
     public PathfindingSnapshot extendSearch(int maxToSettle) {
 
         // TODO A6.1a: Implement this method as specified using Dijkstra's algorithm (but settling
         //  no more than `maxToSettle` new vertices).  Make effective use of this class's fields,
         //  preserving their invariants.
-        //  Note that the constructor parameters for the return type correlate closely with this
-        //  class's fields (and the constructor guarantees copies are made, so you don't need to
-        //  worry about "rep exposure" when sharing them).
-
-        assert maxToSettle > 0;
-
-        int settledCount = 0;
-
-        while (!frontier.isEmpty() && settledCount < maxToSettle) {
-            int curr = frontier.remove();
-
-            if (!settledIds.get(curr)) {
-                settledIds.set(curr);
-                settledCount++;
-
-                Vertex<EdgeType> v = graph.getVertex(curr);
-                // Explore all neighbors to see if this path to them is shorter than any previous ones.
-                for (EdgeType e : v.outgoingEdges()) {
-                    int neighbor = e.endId();
-                    if (!settledIds.get(neighbor)) {
-                        int newDistance = distances[curr] + weigher.weight(e);
-                        if (distances[neighbor] == -1 || newDistance < distances[neighbor]) {
-                            distances[neighbor] = newDistance;
-                            predecessors[neighbor] = curr;
-                            frontier.addOrUpdate(neighbor, newDistance);
-                        }
-
-                    }
+
+        assert maxToSettle >= 0;
+
+        int newlySettled = 0;
+        while (!frontier.isEmpty() && newlySettled < maxToSettle && !cancelled()) {
+            settleNext();
+            newlySettled++;
+        }
+
+        return snapshot();
+    }
+
+    /**
+     * Continue the search in Dijkstra order until every vertex whose ID is produced by `regionIds`
+     * has been settled (or every reachable vertex has been), returning an object from which the
+     * paths to those vertices can be queried.  This bounds a search to a region of interest, such
+     * as a window around the starting point, without giving up exactness: the search stops as soon
+     * as the region is covered and can be resumed later (by another call with a larger region, or
+     * by `extendSearch()`) without starting over.  Requires that a starting vertex has been set.
+     * <p>
+     * Vertices already settled are skipped, so covering a region that contains a previously
+     * covered one only costs time for the new vertices.
+     */
+    @Override
+    public PathfindingSnapshot extendSearchToCover(PrimitiveIterator.OfInt regionIds) {
+        settleAll(regionIds);
+        return snapshot();
+    }
+
+    /**
+     * Continue the search in Dijkstra order only until every vertex in `targetIds` has been
+     * settled (or every reachable vertex has been), returning an object from which the paths to
+     * those targets can be queried.  This lets a client that only needs a few paths stop early,
+     * while keeping our state so that a later `extendSearch()` continues from where this stopped.
+     * Returns immediately if all targets are already settled.  Requires that a starting vertex has
+     * been set.
+     */
+    @Override
+    public PathfindingSnapshot extendSearchUntil(int... targetIds) {
+        settleAll(Arrays.stream(targetIds).iterator());
+        return snapshot();
+    }
+
+    /**
+     * Find the shortest path from the vertex with ID `startId` to the vertex with ID `dstId`,
+     * returning an object from which it can be queried (see `extendSearchUntil()`).  If our search
+     * already starts at `startId`, it is continued rather than restarted, so a sequence of queries
+     * from the same start (such as for a live wire following the cursor) settles each vertex at
+     * most once, and a query for a vertex that is already settled takes O(1) time.  A search that
+     * was confined by `restrictTo()` is restarted, since it may not have found the shortest path.
+     * <p>
+     * Vertices are settled in plain Dijkstra order rather than in A* order.  An A* heuristic must
+     * never overestimate the remaining weight, but the weighers that this solver is used with can
+     * weigh an edge 0 (a diagonal across a flat region, for instance), so the only such bound that
+     * holds everywhere is 0, which makes A* and Dijkstra's algorithm identical.  Stopping as soon
+     * as `dstId` is settled gives the same early exit without the bookkeeping.
+     */
+    @Override
+    public PathfindingSnapshot findPathTo(int startId, int dstId) {
+        if (startId != this.startId || region != null) {
+            setStart(startId);
+        }
+        return extendSearchUntil(dstId);
+    }
+
+    /**
+     * Settle vertices from `frontier` until every vertex whose ID is produced by `ids` has been
+     * settled, the frontier is exhausted, or our cancellation token is cancelled.
+     */
+    private void settleAll(PrimitiveIterator.OfInt ids) {
+        while (ids.hasNext()) {
+            int id = ids.nextInt();
+            while (!settled(id) && !frontier.isEmpty()) {
+                if (cancelled()) {
+                    return;
                 }
+                settleNext();
+            }
+        }
+    }
+
+    /**
+     * Remove the vertex with the smallest distance from `frontier`, settle it, and relax its
+     * outgoing edges.  Requires `frontier` is non-empty.
+     */
+    private void settleNext() {
+        int curr = frontier.remove();
+        // Vertices are never re-queued once settled, so the frontier cannot yield one.
+        assert !settled(curr);
+        settleStamps[curr] = settledCount;
+        settledCount++;
+        if (settleObserver != null) {
+            settleObserver.accept(curr);
+        }
+        maxSettledDistance = distances[curr];
+
+        // Explore all neighbors to see if this path to them is shorter than any previous ones.
+        if (intGraph != null) {
+            relaxingId = curr;
+            intGraph.forEachNeighbor(curr, intWeigher, relaxer);
+        } else {
+            for (EdgeType e : graph.getVertex(curr).outgoingEdges()) {
+                relax(curr, e.endId(), weigher.weight(e));
             }
         }
+    }
 
-        return new PathfindingSnapshot(startId, Arrays.copyOf(distances, distances.length),
-                Arrays.copyOf(predecessors, predecessors.length), (BitSet) settledIds.clone());
+    /**
+     * Record the path through the settled vertex with ID `fromId` to its neighbor with ID `toId`,
+     * along an edge of weight `weight`, if the neighbor is unsettled, within our region (if any),
+     * and this path is shorter than any known path to it.
+     */
+    private void relax(int fromId, int toId, int weight) {
+        int newDistance = distances[fromId] + weight;
+        if (epochs[toId] != epoch) {
+            if (region != null && !region.test(toId)) {
+                return;
+            }
+            discover(toId, fromId, newDistance);
+            frontier.addOrUpdate(toId, distances[toId]);
+        } else if (settleStamps[toId] < 0 && newDistance < distances[toId]) {
+            distances[toId] = newDistance;
+            predecessors[toId] = fromId;
+            frontier.addOrUpdate(toId, distances[toId]);
+        }
+    }
+
+    /**
+     * Record the first known path to the vertex with ID `id`, which has weight `distance` and whose
+     * penultimate vertex has ID `predecessorId`, overwriting any state left by earlier searches.
+     * The epoch is written last, with release semantics, so that snapshots being queried on other
+     * threads never see the vertex as current alongside a stale settle stamp.
+     */
+    private void discover(int id, int predecessorId, int distance) {
+        distances[id] = distance;
+        predecessors[id] = predecessorId;
+        settleStamps[id] = -1;
+        PathfindingSnapshot.EPOCHS.setRelease(epochs, id, epoch);
+    }
+
+    /**
+     * Return whether the shortest path from our current starting vertex to the vertex with ID `id`
+     * has been determined.
+     */
+    private boolean settled(int id) {
+        return epochs[id] == epoch && settleStamps[id] >= 0;
+    }
+
+    /**
+     * Return a snapshot viewing our current results without copying them.
+     */
+    private PathfindingSnapshot snapshot() {
+        shared = true;
+        return new PathfindingSnapshot(startId, epochs, epoch, distances, predecessors,
+                settleStamps, settledCount);
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package graph;
+
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Incrementally solves for shortest paths from a starting vertex, so that a search can be extended
+ * in batches, bounded to a region of interest, or stopped once particular vertices are reached.
+ * Implementations differ in how they store their state; see `ShortestPaths` for the detailed
+ * contract of each operation.
+ * <p>
+ * The snapshots of some implementations know less than those of `ShortestPaths`: snapshots of a
+ * `CompactShortestPaths` solver only know paths to settled vertices, and know no distances
+ * (`PathfindingSnapshot.distanceTo()` returns -1 for every vertex but the start).  Clients that
+ * need distances must not use such a solver.
+ */
+public interface ShortestPathsSolver {
+
+    /**
+     * Return the total number of vertices in the graph we are finding shortest paths in.
+     */
+    int vertexCount();
+
+    /**
+     * Change our starting point to the vertex with ID `startId`, discarding any pathfinding results
+     * from any previous starting point.
+     */
+    void setStart(int startId);
+
+    /**
+     * Confine the current search to the vertices whose IDs satisfy `inRegion`.  Requires that a
+     * starting vertex has been set and that no vertices besides it have been discovered yet.
+     */
+    void restrictTo(IntPredicate inRegion);
+
+    /**
+     * Make every subsequent extension of our search stop early once `token` is cancelled, or never
+     * stop early if `token` is null.
+     */
+    void setCancellationToken(CancellationToken token);
+
+    /**
+     * Make every subsequent extension of our search call `observer` with the ID of each vertex it
+     * settles (on the thread extending the search), or stop doing so if `observer` is null.  Lets
+     * a client track which vertices a batch changed without scanning the graph.
+     */
+    void setSettleObserver(IntConsumer observer);
+
+    /**
+     * Return whether shortest paths have been found for all vertices reachable from the current
+     * starting point.  Returns false if no starting point has been set.
+     */
+    boolean allPathsFound();
+
+    /**
+     * Return a summary of the progress of our current search in O(1) time.
+     */
+    SearchProgress progress();
+
+    /**
+     * Settle up to `maxToSettle` more vertices in Dijkstra order and return a snapshot of our
+     * results.  A solver that settles vertices in groups (such as `DeltaSteppingShortestPaths`)
+     * settles whole groups until at least `maxToSettle` more are settled instead.  Requires
+     * `maxToSettle` is non-negative and that a starting vertex has been set.
+     */
+    PathfindingSnapshot extendSearch(int maxToSettle);
+
+    /**
+     * Continue the search in Dijkstra order until every vertex whose ID is produced by `regionIds`
+     * has been settled (or every reachable vertex has been), and return a snapshot of our results.
+     */
+    PathfindingSnapshot extendSearchToCover(PrimitiveIterator.OfInt regionIds);
+
+    /**
+     * Continue the search in Dijkstra order only until every vertex in `targetIds` has been
+     * settled (or every reachable vertex has been), and return a snapshot of our results.
+     */
+    PathfindingSnapshot extendSearchUntil(int... targetIds);
+
+    /**
+     * Return a snapshot from which the shortest path from the vertex with ID `startId` to the
+     * vertex with ID `dstId` can be queried, continuing our current search if it already starts
+     * there (and is not confined to a region) rather than starting over.
+     */
+    PathfindingSnapshot findPathTo(int startId, int dstId);
+
+    /**
+     * Declare that no snapshot previously returned by this solver will be queried again, so that
+     * our storage may be reused for the next starting point.
+     */
+    void discardSnapshots();
+}
@@ -9,4 +9,12 @@ public interface Weigher<EdgeType extends Edge> {
      * Return the weight of the edge `edge`.
      */
     int weight(EdgeType edge);
+
+    /**
+     * Return an upper bound on the weight of any edge this weigher may be asked to weigh, or -1 if
+     * no bound is known.  Solvers may use a known bound to order their search more efficiently.
+     */
+    default int maxWeight() {
+        return -1;
+    }
 }
@@ -0,0 +1,291 @@
+package scissors;
+
+import graph.CancellationToken;
+import graph.PathfindingSnapshot;
+import graph.ShortestPathsSolver;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import selector.PolyLine;
+
+/**
+ * Shortest-path trees from the control points ("anchors") of a finished selection, computed
+ * speculatively on a low-priority background thread while the user is idle, so that dragging a
+ * control point can reroute its two adjacent segments without searching.
+ * <p>
+ * A dragged point nearly always stays near where it was, so each anchor's search is confined to a
+ * window around it and its two adjacent anchors (padded by `MARGIN`), and the paths it finds are
+ * the shortest that stay within that window.  A tree records, for each pixel of its window, only
+ * the direction to that pixel's predecessor, which takes a quarter of the storage of a predecessor
+ * ID.
+ * <p>
+ * A tree gives paths _from_ its anchor.  Paths _to_ an anchor are found by reversing them, which
+ * is exact because every weight function in `ScissorsWeights` gives an edge and its reverse the
+ * same weight.  Trees are published by the background thread as they complete and may be queried
+ * from any thread.
+ */
+class AnchorTrees {
+
+    /**
+     * The padding (in pixels) added on every side of the bounding box of an anchor and its
+     * neighbors to form the window of its tree.
+     */
+    private static final int MARGIN = 64;
+
+    /**
+     * Anchors whose windows would contain more than this many pixels get no tree; rerouting near
+     * them falls back to searching when a drag ends.
+     */
+    private static final int MAX_TREE_PIXELS = 1 << 20;
+
+    /**
+     * Link code of an anchor in its own tree.  Other reached pixels have the direction to their
+     * predecessor (in `[0..8)`) as their code.
+     */
+    private static final byte ANCHOR = 8;
+
+    /**
+     * Link code of a pixel that was not reached by a tree's search.
+     */
+    private static final byte UNREACHED = -1;
+
+    /**
+     * Runs every speculative search, one at a time, at the lowest thread priority so that it does
+     * not compete with the EDT or with searches the user is waiting for.
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "anchor-trees");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Identifies the tree of the anchor with ID `anchorId` whose neighboring anchors have IDs
+     * `prevId` and `nextId`.  A tree remains valid as long as these three anchors are unchanged.
+     */
+    private record Key(int anchorId, int prevId, int nextId) {}
+
+    /**
+     * The shortest paths within `window` from the anchor identified by `key`.  `links[i]` is the
+     * link code (see `ANCHOR` and `UNREACHED`) of the pixel at row-major index `i` within
+     * `window`.
+     */
+    private record Tree(Key key, Rectangle window, byte[] links) {}
+
+    /**
+     * The graph being searched.
+     */
+    private final ImageGraph graph;
+
+    /**
+     * The pool that our searches borrow a solver from.
+     */
+    private final ShortestPathsPool solvers;
+
+    /**
+     * `keys[i]` identifies the tree of the anchor with index `i` in the selection.
+     */
+    private final Key[] keys;
+
+    /**
+     * `trees.get(i)` is the tree of the anchor with index `i`, or null if it has not been
+     * computed (yet).
+     */
+    private final AtomicReferenceArray<Tree> trees;
+
+    /**
+     * Cancelled when our trees are no longer wanted, so that the background search stops early.
+     */
+    private final CancellationToken token = new CancellationToken();
+
+    /**
+     * Start computing trees for the anchors of a closed selection in `graph`, where `anchorIds[i]`
+     * is the ID of the pixel at the start of segment `i`, using solvers from `solvers` (which must
+     * not create parallel solvers, whose workers would not share our thread's low priority).
+     * Trees of `previous` (which may be null) whose anchor and neighboring anchors are unchanged
+     * are reused rather than recomputed.  This must be called from the EDT and returns immediately.
+     */
+    AnchorTrees(ImageGraph graph, ShortestPathsPool solvers, int[] anchorIds,
+            AnchorTrees previous) {
+        this.graph = graph;
+        this.solvers = solvers;
+        int n = anchorIds.length;
+        keys = new Key[n];
+        trees = new AtomicReferenceArray<>(n);
+
+        Map<Key, Tree> reusable = new HashMap<>();
+        if (previous != null && previous.graph == graph) {
+            for (int i = 0; i < previous.trees.length(); ++i) {
+                Tree tree = previous.trees.get(i);
+                if (tree != null) {
+                    reusable.put(tree.key(), tree);
+                }
+            }
+        }
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            keys[i] = new Key(anchorIds[i], anchorIds[(i + n - 1) % n], anchorIds[(i + 1) % n]);
+            Tree tree = reusable.get(keys[i]);
+            if (tree != null) {
+                trees.set(i, tree);
+            } else {
+                pending.add(i);
+            }
+        }
+        if (!pending.isEmpty()) {
+            executor.execute(() -> computeTrees(pending));
+        }
+    }
+
+    /**
+     * Stop computing trees.  Trees that are already complete remain available.
+     */
+    void cancel() {
+        token.cancel();
+    }
+
+    /**
+     * Return the path from the anchor with index `index` to the pixel with ID `dstId`, or null if
+     * that anchor's tree is not ready or does not reach that pixel.  `buffer`'s previous contents
+     * are discarded.
+     */
+    PolyLine pathFrom(int index, int dstId, PolyLineBuffer buffer) {
+        return trace(index, dstId, buffer) ? buffer.reverse().toPolyLine() : null;
+    }
+
+    /**
+     * Return the path from the pixel with ID `srcId` to the anchor with index `index`, or null if
+     * that anchor's tree is not ready or does not reach that pixel.  `buffer`'s previous contents
+     * are discarded.
+     */
+    PolyLine pathTo(int srcId, int index, PolyLineBuffer buffer) {
+        return trace(index, srcId, buffer) ? buffer.toPolyLine() : null;
+    }
+
+    /**
+     * Write the pixels along the path from the pixel with ID `id` back to the anchor with index
+     * `index` into `buffer`, in that order.  Returns false (leaving `buffer` unspecified) if that
+     * anchor's tree is not ready or does not reach that pixel.
+     */
+    private boolean trace(int index, int id, PolyLineBuffer buffer) {
+        Tree tree = trees.get(index);
+        if (tree == null) {
+            return false;
+        }
+        Rectangle window = tree.window();
+        buffer.clear();
+        int x = id % graph.width();
+        int y = id / graph.width();
+        while (true) {
+            if (!window.contains(x, y)) {
+                return false;
+            }
+            byte code = tree.links()[(y - window.y) * window.width + (x - window.x)];
+            if (code == UNREACHED) {
+                return false;
+            }
+            buffer.append(x, y);
+            if (code == ANCHOR) {
+                return true;
+            }
+            x += ImageGraph.DX[code];
+            y += ImageGraph.DY[code];
+        }
+    }
+
+    /**
+     * Compute the trees of the anchors with indices in `indices`, in order, publishing each as it
+     * completes.  Runs on our executor's thread.
+     */
+    private void computeTrees(List<Integer> indices) {
+        if (token.isCancelled()) {
+            return;
+        }
+        solvers.weigher().ensureComputed();
+        ShortestPathsSolver solver = solvers.acquire();
+        solver.setCancellationToken(token);
+        try {
+            for (int i : indices) {
+                Tree tree = computeTree(solver, keys[i]);
+                if (token.isCancelled()) {
+                    return;
+                }
+                trees.set(i, tree);
+            }
+        } finally {
+            solvers.release(solver);
+        }
+    }
+
+    /**
+     * Search from the anchor identified by `key` with `solver`, within the anchor's window, and
+     * return the resulting tree.  Returns null if the window is too large or if we are cancelled
+     * before the search finishes.
+     */
+    private Tree computeTree(ShortestPathsSolver solver, Key key) {
+        Rectangle window = windowFor(key);
+        if ((long) window.width * window.height > MAX_TREE_PIXELS) {
+            return null;
+        }
+        int width = graph.width();
+        solver.setStart(key.anchorId());
+        solver.restrictTo(id -> window.contains(id % width, id / width));
+        PathfindingSnapshot paths = solver.extendSearch(graph.vertexCount());
+        if (token.isCancelled()) {
+            return null;
+        }
+
+        byte[] links = new byte[window.width * window.height];
+        Arrays.fill(links, UNREACHED);
+        int i = 0;
+        for (int y = window.y; y < window.y + window.height; ++y) {
+            for (int x = window.x; x < window.x + window.width; ++x) {
+                int id = y * width + x;
+                if (paths.settled(id)) {
+                    int predecessorId = paths.predecessorOf(id);
+                    links[i] = (predecessorId < 0) ? ANCHOR
+                            : directionTo(predecessorId % width - x, predecessorId / width - y);
+                }
+                i += 1;
+            }
+        }
+        // The links have been copied out, so the solver's arrays can be reused by the next search.
+        solver.discardSnapshots();
+        return new Tree(key, window, links);
+    }
+
+    /**
+     * Return the window of the tree identified by `key`: the bounding box of its anchor and
+     * neighboring anchors, padded by `MARGIN` and clipped to the image.
+     */
+    private Rectangle windowFor(Key key) {
+        Rectangle window = new Rectangle(graph.getVertex(key.anchorId()).point());
+        window.add(graph.getVertex(key.prevId()).point());
+        window.add(graph.getVertex(key.nextId()).point());
+        // Rectangle.add() treats points as having no area, so add one for the far pixels.
+        window.width += 1;
+        window.height += 1;
+        window.grow(MARGIN, MARGIN);
+        return window.intersection(new Rectangle(0, 0, graph.width(), graph.height()));
+    }
+
+    /**
+     * Return the direction whose neighbor offset is (`dx`, `dy`).  Requires that offset is that of
+     * a neighboring pixel.
+     */
+    private static byte directionTo(int dx, int dy) {
+        for (byte dir = 0; dir < 8; ++dir) {
+            if (ImageGraph.DX[dir] == dx && ImageGraph.DY[dir] == dy) {
+                return dir;
+            }
+        }
+        throw new IllegalArgumentException("Not a neighbor offset: (" + dx + ", " + dy + ")");
+    }
+}
@@ -0,0 +1,174 @@
+package scissors;
+
+import graph.IntWeigher;
+import graph.Weigher;
+import java.util.stream.IntStream;
+
+/**
+ * A Weigher that computes the weight of every edge in an ImageGraph once, using another weigher
+ * (the "source" weigher, created from a weight function's name), and then answers queries from
+ * compact per-pixel tables.  The weights of the 8 edges leaving each
+ * pixel are stored together (indexed by `8 * startId + dir`) as unsigned bytes if the source
+ * weigher's maximum weight allows it, or as unsigned 16-bit values otherwise.  If the source
+ * weigher does not declare a small enough maximum weight, or if the tables would take at least
+ * `UNCACHED_MIN_BYTES` bytes, queries are forwarded to the source weigher instead.  The weighers
+ * that `ScissorsWeights` creates are also `IntWeigher`s, so such queries allocate nothing.
+ * <p>
+ * The source weigher is created and the tables are filled by `ensureComputed()`, which must be
+ * called by any thread before it first queries this weigher.  Creating a source weigher may
+ * preprocess the whole image (such as converting it to grayscale), so this is left to the
+ * background threads that search, and a caching weigher can be looked up on the EDT.
+ */
+class CachingWeigher implements Weigher<ImageEdge>, IntWeigher {
+
+    /**
+     * Graphs whose tables would take at least this many bytes (8 entries per pixel) are not
+     * cached.  Filling the tables weighs every edge of the image before the first search can
+     * start, while graphs this large are only searched within a window around each point or,
+     * when traced coarse-to-fine, within narrow corridors, so few of their edges are ever
+     * weighed.  With byte entries, this caches exactly the images that `ScissorsSelectionModel`
+     * searches whole rather than within a region of interest.
+     */
+    static final long UNCACHED_MIN_BYTES = 1L << 27;
+
+    /**
+     * The graph whose edges are weighed.
+     */
+    private final ImageGraph graph;
+
+    /**
+     * The name of the weight function (as recognized by the `ScissorsWeights` factory) whose
+     * weights are cached.
+     */
+    private final String weightName;
+
+    /**
+     * The weigher whose weights are cached, created from `weightName` by `ensureComputed()`.  Null
+     * until then.
+     */
+    private Weigher<ImageEdge> source;
+
+    /**
+     * `source` viewed as an `IntWeigher`, or null if it cannot weigh an edge by its start and
+     * direction (in which case each uncached query by start and direction creates an ImageEdge).
+     * Set along with `source`.
+     */
+    private IntWeigher intSource;
+
+    /**
+     * `byteWeights[8 * id + dir]` is the weight (as an unsigned byte) of the edge leaving the pixel
+     * with ID `id` in direction `dir`.  Null unless the source's maximum weight fits in a byte.
+     * Entries for edges leaving the image are unspecified.
+     */
+    private byte[] byteWeights;
+
+    /**
+     * `charWeights[8 * id + dir]` is the weight of the edge leaving the pixel with ID `id` in
+     * direction `dir`.  Null unless `byteWeights` is null and the source's maximum weight fits in a
+     * `char`.
+     */
+    private char[] charWeights;
+
+    /**
+     * Whether the tables have been filled (or determined to be unnecessary).  Guarded by `this`.
+     */
+    private boolean computed;
+
+    /**
+     * Create a weigher that caches the weights given to the edges of `graph` by the weight
+     * function named `weightName`.  Neither that function's weigher nor the cache is created until
+     * `ensureComputed()` is called, so this is cheap.
+     */
+    CachingWeigher(ImageGraph graph, String weightName) {
+        this.graph = graph;
+        this.weightName = weightName;
+    }
+
+    /**
+     * Create our source weigher and fill our tables if that has not already been done.  This may
+     * preprocess the image and queries the source weigher once for every edge in the graph (in
+     * parallel across rows), so it should be called from a background thread.  Safe to call
+     * concurrently; all callers return once the tables are complete.  Throws
+     * IllegalArgumentException if our weight function's name is not recognized.
+     */
+    synchronized void ensureComputed() {
+        if (computed) {
+            return;
+        }
+        source = ScissorsWeights.makeWeigher(weightName, graph);
+        intSource = (source instanceof IntWeigher w) ? w : null;
+        int maxWeight = source.maxWeight();
+        long edgeSlots = 8L * graph.vertexCount();
+        if (maxWeight >= 0 && maxWeight <= 0xFF && edgeSlots < UNCACHED_MIN_BYTES) {
+            byteWeights = new byte[(int) edgeSlots];
+        } else if (maxWeight > 0xFF && maxWeight <= Character.MAX_VALUE
+                && edgeSlots * Character.BYTES < UNCACHED_MIN_BYTES) {
+            charWeights = new char[(int) edgeSlots];
+        }
+        if (byteWeights != null || charWeights != null) {
+            IntStream.range(0, graph.height()).parallel().forEach(this::computeRow);
+        }
+        computed = true;
+    }
+
+    /**
+     * Fill the table entries for the edges leaving each pixel in row `y`.
+     */
+    private void computeRow(int y) {
+        int width = graph.width();
+        for (int x = 0; x < width; ++x) {
+            ImageVertex v = new ImageVertex(graph, x, y);
+            for (ImageEdge e : v.outgoingEdges()) {
+                int w = source.weight(e);
+                int slot = 8 * e.startId() + e.dir();
+                if (byteWeights != null) {
+                    byteWeights[slot] = (byte) w;
+                } else {
+                    charWeights[slot] = (char) w;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the weight of the edge leaving the pixel with ID `id` in direction `dir`.  Requires
+     * that such an edge exists and that `ensureComputed()` has been called.
+     */
+    @Override
+    public int weight(int id, int dir) {
+        assert computed;
+        int slot = 8 * id + dir;
+        if (byteWeights != null) {
+            return byteWeights[slot] & 0xFF;
+        } else if (charWeights != null) {
+            return charWeights[slot];
+        } else if (intSource != null) {
+            return intSource.weight(id, dir);
+        } else {
+            return source.weight(new ImageEdge(id, graph.getVertex(id).neighborId(dir), dir));
+        }
+    }
+
+    @Override
+    public int weight(ImageEdge edge) {
+        assert computed;
+        int slot = 8 * edge.startId() + edge.dir();
+        if (byteWeights != null) {
+            return byteWeights[slot] & 0xFF;
+        } else if (charWeights != null) {
+            return charWeights[slot];
+        } else {
+            return source.weight(edge);
+        }
+    }
+
+    /**
+     * Return the maximum weight declared by our source weigher.  Requires that `ensureComputed()`
+     * has been called.
+     */
+    @Override
+    public int maxWeight() {
+        assert computed;
+        return source.maxWeight();
+    }
+}
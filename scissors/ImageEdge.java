@@ -0,0 +1,36 @@
+package scissors;
+
+import graph.Edge;
+
+/**
+ * An Edge in an ImageGraph connecting the vertex with ID `startId` to its neighboring vertex with
+ * ID `endId`, which lies in the direction `dir` relative to the start.
+ * <p>
+ * Invariant: `dst.equals(src.neighbor(dir))`.
+ */
+record ImageEdge(int startId, int endId, int dir) implements Edge {
+
+    public ImageEdge {
+        // This "post-constructor" runs after the record's fields have been initialized to the
+        //  constructor's arguments.  Here we just assert that the location is within the image's
+        //  bounds.
+        assert dir >= 0 && dir < 8;
+
+        // We can't actually assert these without a reference to the ImageGraph, but we leave them
+        //  here as documentation.
+//        assert getVertex(startId).validDir(dir);
+//        assert endId == getVertex(startId).neighborId(dir);
+    }
+
+    /**
+     * Return the geometric length of this edge, in pixel units, interpreting it as connecting pixel
+     * centers.
+     */
+    public double length() {
+        if (dir % 2 == 0) {
+            return 1;
+        } else {
+            return Math.sqrt(2);
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package scissors;
 
-import graph.Edge;
-import graph.Graph;
-import graph.Vertex;
+import graph.GridGraph;
+import graph.IntEdgeVisitor;
+import graph.IntWeigher;
+import graph.PathfindingSnapshot;
+import graph.ReversibleGraph;
+import graph.ReversibleIntGraph;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BandCombineOp;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
-import java.util.Iterator;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.stream.IntStream;
 import selector.PolyLine;
 
 /**
@@ -16,32 +27,99 @@ import selector.PolyLine;
  * their neighboring pixels (including diagonals).  Edges are interpreted as connecting pixel
  * centers and are aware of their length and direction within the image.
  */
-class ImageGraph implements Graph<ImageVertex> {
+class ImageGraph implements ReversibleGraph<ImageVertex, ImageEdge>, GridGraph,
+        ReversibleIntGraph {
+
+    /**
+     * `DX[dir]` and `DY[dir]` are the offsets to the neighboring pixel in direction `dir`, using
+     * the same conventions as `ImageVertex` (0 points right and 2 points up).
+     */
+    static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    static final int[] DY = {0, -1, -1, -1, 0, 1, 1, 1};
 
     /**
      * The image we are providing a graph structure for.
      */
     private final BufferedImage img;
 
+    /**
+     * The width of our image (cached, since images cannot be resized).
+     */
+    private final int width;
+
+    /**
+     * The height of our image (cached, since images cannot be resized).
+     */
+    private final int height;
+
+    /**
+     * `neighborOffsets[dir]` is the difference between the ID of a pixel's neighbor in direction
+     * `dir` and the ID of the pixel itself.
+     */
+    private final int[] neighborOffsets;
+
+    /**
+     * A single-band copy of our image's raster whose samples are the average of its bands, or
+     * null if it has not been needed yet.  Never modified once created.  Guarded by `this`.
+     */
+    private Raster grayRaster;
+
+    /**
+     * Caching weighers for our edges, keyed by the name of the weight function (as recognized by
+     * `ScissorsWeights`) whose weights they cache.  Shared by every search of our image so that
+     * preprocessing and weighing happen once per image rather than once per search.  Guarded by
+     * `this`.
+     */
+    private final Map<String, CachingWeigher> weighers;
+
+    /**
+     * Pools of idle solvers for searches of our graph, keyed by the name of the weight function
+     * whose caching weigher (in `weighers`) they search with and by the kind of solver they
+     * create.  Shared by every search of our image so that models tracing the same image reuse
+     * each other's per-pixel storage.  Guarded by `this`.
+     */
+    private final Map<PoolKey, ShortestPathsPool> solverPools;
+
+    /**
+     * Identifies the pool in `solverPools` of solvers of kind `kind` that search with the weight
+     * function named `weightName`.
+     */
+    private record PoolKey(String weightName, ShortestPathsPool.SolverKind kind) {}
+
+    /**
+     * Graphs over downsampled copies of our image, keyed by their downsampling factor.  Guarded
+     * by `this`.
+     */
+    private final Map<Integer, ImageGraph> downsampled;
+
     /**
      * Create a new ImageGraph to provide a graph structure over the image `img`.
      */
     public ImageGraph(BufferedImage img) {
         this.img = img;
+        width = img.getWidth();
+        height = img.getHeight();
+        neighborOffsets = new int[8];
+        for (int dir = 0; dir < 8; ++dir) {
+            neighborOffsets[dir] = DX[dir] + width * DY[dir];
+        }
+        weighers = new HashMap<>();
+        solverPools = new HashMap<>();
+        downsampled = new HashMap<>();
     }
 
     /**
      * Return the width of our image (the number of pixels in one row).
      */
     public int width() {
-        return img.getWidth();
+        return width;
     }
 
     /**
      * Return the height of our image (the number of pixels in one column).
      */
     public int height() {
-        return img.getHeight();
+        return height;
     }
 
     @Override
@@ -57,6 +135,56 @@ class ImageGraph implements Graph<ImageVertex> {
         return new ImageVertex(this, x, y);
     }
 
+    @Override
+    public void forEachNeighbor(int id, IntWeigher weigher, IntEdgeVisitor visitor) {
+        int y = id / width;
+        int x = id - y * width;
+        // Most pixels are away from the border and have all 8 neighbors.
+        boolean interior = x > 0 && x < width - 1 && y > 0 && y < height - 1;
+        for (int dir = 0; dir < 8; ++dir) {
+            if (interior || inBounds(x + DX[dir], y + DY[dir])) {
+                visitor.visit(id + neighborOffsets[dir], dir, weigher.weight(id, dir));
+            }
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(int id, IntWeigher weigher, IntEdgeVisitor visitor) {
+        int y = id / width;
+        int x = id - y * width;
+        boolean interior = x > 0 && x < width - 1 && y > 0 && y < height - 1;
+        for (int dir = 0; dir < 8; ++dir) {
+            if (interior || inBounds(x + DX[dir], y + DY[dir])) {
+                // Every neighbor has an edge back to us, pointing in the opposite direction.
+                int neighborId = id + neighborOffsets[dir];
+                int reverseDir = (dir + 4) % 8;
+                visitor.visit(neighborId, reverseDir, weigher.weight(neighborId, reverseDir));
+            }
+        }
+    }
+
+    @Override
+    public int predecessorId(int id, int dir) {
+        return id - neighborOffsets[dir];
+    }
+
+    /**
+     * Return whether the pixel location (`x`, `y`) is within the bounds of our image.
+     */
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public Iterable<ImageEdge> incomingEdges(int id) {
+        List<ImageEdge> edges = new ArrayList<>(8);
+        for (ImageEdge out : getVertex(id).outgoingEdges()) {
+            // Every neighbor has an edge back to us, pointing in the opposite direction.
+            edges.add(new ImageEdge(out.endId(), id, (out.dir() + 4) % 8));
+        }
+        return edges;
+    }
+
     /**
      * Return the ID of the vertex at pixel location `p`.  Requires `p` is within the bounds of the
      * image.
@@ -77,183 +205,171 @@ class ImageGraph implements Graph<ImageVertex> {
     }
 
     /**
-     * Return the Raster backing our image.  This is convenient for querying the brightness of
-     * pixels in different color bands.
+     * Return the rectangle of pixels whose x and y coordinates are each within `radius` of those
+     * of the pixel with ID `id`, clipped to the bounds of our image.  Requires `radius` is
+     * non-negative.
      */
-    public Raster raster() {
-        return img.getRaster();
+    public Rectangle windowAround(int id, int radius) {
+        int x = id % width;
+        int y = id / width;
+        int minX = Math.max(0, x - radius);
+        int minY = Math.max(0, y - radius);
+        int maxX = Math.min(width - 1, x + radius);
+        int maxY = Math.min(height - 1, y + radius);
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
     }
 
     /**
-     * Convert a sequence of vertex IDs, `path`, into a `PolyLine` that connects to the
-     * corresponding pixels.
+     * Return whether `window` covers our entire image.
      */
-    public PolyLine pathToPolyLine(List<Integer> path) {
-        PolyLineBuffer buffer = new PolyLineBuffer(path.size());
-        for (int id : path) {
-            buffer.append(getVertex(id).point());
-        }
-        return buffer.toPolyLine();
+    public boolean coversImage(Rectangle window) {
+        return window.contains(0, 0, width, height);
     }
-}
 
-/**
- * A Vertex in the ImageGraph `image` representing a pixel at location (x, y).
- * <p>
- * Invariant: `0 <= x < image.width()`, `0 <= y < image.height()`.
- */
-record ImageVertex(ImageGraph image, int x, int y) implements Vertex<ImageEdge> {
-
-    public ImageVertex {
-        // This "post-constructor" runs after the record's fields have been initialized to the
-        //  constructor's arguments.  Here we just assert that the location is within the image's
-        //  bounds.
-        assert x >= 0 && x < image.width();
-        assert y >= 0 && y < image.height();
+    /**
+     * Return the IDs of the pixels in `window`, in row-major order.  Requires `window` is within
+     * the bounds of our image.
+     */
+    public IntStream idsIn(Rectangle window) {
+        assert window.x >= 0 && window.x + window.width <= width;
+        assert window.y >= 0 && window.y + window.height <= height;
+        return IntStream.range(window.y, window.y + window.height)
+                .flatMap(y -> IntStream.range(y * width + window.x,
+                        y * width + window.x + window.width));
     }
 
-    @Override
-    public int id() {
-        return xyToId(x, y, image.width());
+    /**
+     * Return the Raster backing our image.  This is convenient for querying the brightness of
+     * pixels in different color bands.
+     */
+    public Raster raster() {
+        return img.getRaster();
     }
 
-    @Override
-    public Iterable<ImageEdge> outgoingEdges() {
-        return new Iterable<ImageEdge>() {
-            @Override
-            public Iterator<ImageEdge> iterator() {
-                return new ImageEdgeIterator();
-            }
-        };
+    /**
+     * Return a single-band grayscale version of our image's raster, whose samples are the average
+     * of its bands.  It is computed on first use and shared afterwards, so clients must not modify
+     * it.
+     */
+    public synchronized Raster grayRaster() {
+        if (grayRaster == null) {
+            // Convert our image to black-and-white by averaging its bands.  The 1-row matrix yields
+            //  a single output band, whose samples are no wider than the widest input band.
+            Raster src = raster();
+            float[][] avgMatrix = new float[1][src.getNumBands()];
+            Arrays.fill(avgMatrix[0], 1.0f / src.getNumBands());
+            int maxSampleSize = Arrays.stream(src.getSampleModel().getSampleSize()).max()
+                    .orElse(8);
+            int dataType = (maxSampleSize <= 8) ? DataBuffer.TYPE_BYTE : DataBuffer.TYPE_USHORT;
+            WritableRaster gray = Raster.createBandedRaster(dataType, width, height, 1, null);
+            grayRaster = new BandCombineOp(avgMatrix, null).filter(src, gray);
+        }
+        return grayRaster;
     }
 
     /**
-     * Return the location of the pixel represented by this vertex in the image.
+     * Return a graph over a copy of our image that is smaller by `factor` in each dimension, in
+     * which each pixel's samples are the average of a `factor` by `factor` block of our pixels
+     * (blocks along the right and bottom edges may be partial).  The pixel at (x, y) in our image
+     * is covered by the pixel at (x / factor, y / factor) in the copy.  The copy is computed on
+     * first request and shared afterwards.  Requires `factor` is at least 1.
      */
-    public Point point() {
-        return new Point(x, y);
+    synchronized ImageGraph downsampled(int factor) {
+        assert factor >= 1;
+        return (factor == 1) ? this
+                : downsampled.computeIfAbsent(factor, f -> new ImageGraph(averageBlocks(f)));
     }
 
     /**
-     * Return whether a potential pixel neighbor in the direction `dir` is within the image's
-     * bounds.  Requires `dir` in [0..7], with 0 representing "right" and 2 representing "up".
+     * Return a copy of our image that is smaller by `factor` in each dimension, averaging the
+     * samples of each block of pixels in each band.
      */
-    boolean validDir(int dir) {
-        return switch (dir) {
-            case 0 -> x + 1 < image.width();
-            case 1 -> x + 1 < image.width() && y > 0;
-            case 2 -> y > 0;
-            case 3 -> x > 0 && y > 0;
-            case 4 -> x > 0;
-            case 5 -> x > 0 && y + 1 < image.height();
-            case 6 -> y + 1 < image.height();
-            case 7 -> x + 1 < image.width() && y + 1 < image.height();
-            default -> false;
-        };
+    private BufferedImage averageBlocks(int factor) {
+        int coarseWidth = (width + factor - 1) / factor;
+        int coarseHeight = (height + factor - 1) / factor;
+        Raster src = raster();
+        int bands = src.getNumBands();
+        ColorModel colorModel = img.getColorModel();
+        WritableRaster dst = colorModel.createCompatibleWritableRaster(coarseWidth, coarseHeight);
+
+        int[] row = new int[width * bands];
+        long[] sums = new long[coarseWidth * bands];
+        int[] averages = new int[coarseWidth * bands];
+        for (int cy = 0; cy < coarseHeight; ++cy) {
+            Arrays.fill(sums, 0);
+            int rows = Math.min(factor, height - cy * factor);
+            for (int y = cy * factor; y < cy * factor + rows; ++y) {
+                src.getPixels(0, y, width, 1, row);
+                for (int x = 0; x < width; ++x) {
+                    for (int b = 0; b < bands; ++b) {
+                        sums[(x / factor) * bands + b] += row[x * bands + b];
+                    }
+                }
+            }
+            for (int cx = 0; cx < coarseWidth; ++cx) {
+                int count = rows * Math.min(factor, width - cx * factor);
+                for (int b = 0; b < bands; ++b) {
+                    averages[cx * bands + b] = (int) (sums[cx * bands + b] / count);
+                }
+            }
+            dst.setPixels(0, cy, coarseWidth, 1, averages);
+        }
+        return new BufferedImage(colorModel, dst, colorModel.isAlphaPremultiplied(), null);
     }
 
     /**
-     * Return the ID of our neighboring vertex in the direction `dir`.  Requires that such a
-     * neighbor is within the image's bounds.  Requires `dir` in [0..7], with 0 representing "right"
-     * and 2 representing "up".
+     * Return the caching weigher for our edges under the weight function named `weightName` (as
+     * recognized by the `ScissorsWeights` factory), creating it if this is the first request for
+     * that name.  Repeated calls return the same weigher, so its tables are computed at most once
+     * for this graph.  The weight function itself is not created until the weigher's
+     * `ensureComputed()` is called (which throws IllegalArgumentException if `weightName` is not
+     * recognized), so this is cheap enough to call on the EDT.
      */
-    int neighborId(int dir) {
-        assert validDir(dir);
-        return switch (dir) {
-            case 0 -> xyToId(x + 1, y, image.width());
-            case 1 -> xyToId(x + 1, y - 1, image.width());
-            case 2 -> xyToId(x, y - 1, image.width());
-            case 3 -> xyToId(x - 1, y - 1, image.width());
-            case 4 -> xyToId(x - 1, y, image.width());
-            case 5 -> xyToId(x - 1, y + 1, image.width());
-            case 6 -> xyToId(x, y + 1, image.width());
-            case 7 -> xyToId(x + 1, y + 1, image.width());
-            default -> throw new IllegalArgumentException();
-        };
+    synchronized CachingWeigher cachedWeigher(String weightName) {
+        return weighers.computeIfAbsent(weightName, name -> new CachingWeigher(this, name));
     }
 
     /**
-     * Convert a pixel location (`x`, `y`) to a vertex ID for an ImageGraph with a width of
-     * `width`.
+     * Return the pool of solvers that search our graph with `cachedWeigher(weightName)`, creating
+     * it if this is the first request for that name.  The kind of solver it creates depends on our
+     * size (see `ShortestPathsPool.kindFor()`).  Like `cachedWeigher()`, this is cheap.
      */
-    static int xyToId(int x, int y, int width) {
-        assert x >= 0 && x < width;
-        return x + width * y;
+    synchronized ShortestPathsPool solvers(String weightName) {
+        return solvers(weightName, ShortestPathsPool.kindFor(vertexCount()));
     }
 
     /**
-     * An Iterator for enumerating the valid outgoing edges for this ImageVertex.
+     * Return the pool of solvers of kind `kind` that search our graph with
+     * `cachedWeigher(weightName)`, creating it if this is the first request for that name and
+     * kind.  Like `cachedWeigher()`, this is cheap.
      */
-    class ImageEdgeIterator implements Iterator<ImageEdge> {
-
-        /**
-         * The next edge direction to yield, or 8 if all edges have been yielded.
-         */
-        private int nextDir;
-
-        public ImageEdgeIterator() {
-            nextDir = 0;
-            findNextValidDir();
-        }
-
-        @Override
-        public boolean hasNext() {
-            return nextDir < 8;
-        }
-
-        @Override
-        public ImageEdge next() {
-            if (!hasNext()) {
-                throw new NoSuchElementException();
-            }
-            ImageEdge nextEdge = new ImageEdge(id(), neighborId(nextDir), nextDir);
-            nextDir += 1;
-            findNextValidDir();
-            return nextEdge;
-        }
-
-        /**
-         * Advance `nextDir` until it represents the next valid edge direction ("valid" means that
-         * it points to a neighbor that is within the image's bounds).  Advances to 8 when there are
-         * no more valid edge directions.
-         */
-        private void findNextValidDir() {
-            while (nextDir < 8 && !validDir(nextDir)) {
-                nextDir += 1;
-            }
-        }
+    synchronized ShortestPathsPool solvers(String weightName, ShortestPathsPool.SolverKind kind) {
+        return solverPools.computeIfAbsent(new PoolKey(weightName, kind),
+                key -> new ShortestPathsPool(this, cachedWeigher(weightName), kind));
     }
-}
 
-/**
- * An Edge in an ImageGraph connecting the vertex with ID `startId` to its neighboring vertex with
- * ID `endId`, which lies in the direction `dir` relative to the start.
- * <p>
- * Invariant: `dst.equals(src.neighbor(dir))`.
- */
-record ImageEdge(int startId, int endId, int dir) implements Edge {
-
-    public ImageEdge {
-        // This "post-constructor" runs after the record's fields have been initialized to the
-        //  constructor's arguments.  Here we just assert that the location is within the image's
-        //  bounds.
-        assert dir >= 0 && dir < 8;
-
-        // We can't actually assert these without a reference to the ImageGraph, but we leave them
-        //  here as documentation.
-//        assert getVertex(startId).validDir(dir);
-//        assert endId == getVertex(startId).neighborId(dir);
+    /**
+     * Convert a sequence of vertex IDs, `path`, into a `PolyLine` that connects to the
+     * corresponding pixels.
+     */
+    public PolyLine pathToPolyLine(List<Integer> path) {
+        PolyLineBuffer buffer = new PolyLineBuffer(path.size());
+        for (int id : path) {
+            buffer.append(id % width, id / width);
+        }
+        return buffer.toPolyLine();
     }
 
     /**
-     * Return the geometric length of this edge, in pixel units, interpreting it as connecting pixel
-     * centers.
+     * Return a `PolyLine` connecting the pixels along the shortest known path in `paths` to the
+     * pixel with ID `dstId`.  The pixel coordinates are written directly into `buffer` (whose
+     * previous contents are discarded) while walking the path backwards, so this takes time
+     * proportional to the length of the path and only allocates the returned PolyLine (plus any
+     * growth of `buffer`).  Throws IllegalArgumentException if `dstId` has not been discovered.
      */
-    public double length() {
-        if (dir % 2 == 0) {
-            return 1;
-        } else {
-            return Math.sqrt(2);
-        }
+    public PolyLine pathToPolyLine(PathfindingSnapshot paths, int dstId, PolyLineBuffer buffer) {
+        buffer.clear();
+        paths.forEachOnPathTo(dstId, id -> buffer.append(id % width, id / width));
+        return buffer.reverse().toPolyLine();
     }
 }
@@ -12,9 +12,25 @@ public class ImagePathsSnapshot {
     private ImageGraph graph;
     private PathfindingSnapshot paths;
 
+    /**
+     * The factor by which `graph`'s image is downsampled relative to the image that clients query
+     * locations in (1 if they are the same).
+     */
+    private int scale;
+
     ImagePathsSnapshot(ImageGraph graph, PathfindingSnapshot paths) {
+        this(graph, paths, 1);
+    }
+
+    /**
+     * Wrap `paths`, which were found in `graph`, for clients querying locations in an image that is
+     * larger than `graph`'s by a factor of `scale` in each dimension (see
+     * `ImageGraph.downsampled()`).
+     */
+    ImagePathsSnapshot(ImageGraph graph, PathfindingSnapshot paths, int scale) {
         this.graph = graph;
         this.paths = paths;
+        this.scale = scale;
     }
 
     /**
@@ -22,7 +38,7 @@ public class ImagePathsSnapshot {
      * starting location.  Requires `p` is a point in the image.
      */
     public boolean discovered(Point p) {
-        return paths.discovered(graph.idAt(p));
+        return paths.discovered(idAt(p));
     }
 
     /**
@@ -30,6 +46,47 @@ public class ImagePathsSnapshot {
      * at location `p` Requires `p` is a point in the image.
      */
     public boolean settled(Point p) {
-        return paths.settled(graph.idAt(p));
+        return paths.settled(idAt(p));
+    }
+
+    /**
+     * Return whether the pixel at location (`x`, `y`) is known to be reachable from the
+     * pathfinder's starting location.  Like `discovered(Point)`, but allocates nothing, for
+     * clients that scan many pixels.  Requires (`x`, `y`) is a point in the image.
+     */
+    public boolean discovered(int x, int y) {
+        return paths.discovered(ImageVertex.xyToId(x / scale, y / scale, graph.width()));
+    }
+
+    /**
+     * Return whether a shortest path is known from the pathfinder's starting location to the pixel
+     * at location (`x`, `y`).  Like `settled(Point)`, but allocates nothing.  Requires (`x`, `y`)
+     * is a point in the image.
+     */
+    public boolean settled(int x, int y) {
+        return paths.settled(ImageVertex.xyToId(x / scale, y / scale, graph.width()));
+    }
+
+    /**
+     * Return the factor by which the statuses we report are downsampled relative to the image:
+     * every pixel in a `scale` by `scale` block aligned to multiples of `scale` has the same
+     * status.
+     */
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Return the paths that we wrap.
+     */
+    PathfindingSnapshot paths() {
+        return paths;
+    }
+
+    /**
+     * Return the ID of the vertex in `graph` covering the location `p`.
+     */
+    private int idAt(Point p) {
+        return (scale == 1) ? graph.idAt(p) : graph.idAt(new Point(p.x / scale, p.y / scale));
     }
 }
@@ -0,0 +1,193 @@
+package scissors;
+
+import graph.CancellationToken;
+import graph.PathfindingSnapshot;
+import graph.ShortestPathsSolver;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import selector.PolyLine;
+
+/**
+ * Finds "intelligent scissors" paths in a very large image coarse-to-fine.  Shortest paths are
+ * first found in a downsampled copy of the image (by a client, using `coarse()`); each requested
+ * path is then refined at full resolution by a search confined to a narrow corridor of pixels
+ * around the corresponding coarse path.  A refined path is the shortest path within its corridor,
+ * which is usually, but not necessarily, the shortest path in the whole image.
+ * <p>
+ * Creating a pyramid downsamples the image and prepares the full-resolution weigher (which may
+ * preprocess the whole image, such as converting it to grayscale), so it must be done off the EDT.
+ * Refining a path afterward only searches its corridor, so it is cheap enough for the EDT when
+ * the path is short, though long paths are best refined in the background.
+ * Safe to use from multiple threads; refinements run one at a time, since they share the storage
+ * that marks their corridors.
+ */
+class ImagePyramid {
+
+    /**
+     * How many coarse pixels on either side of a coarse path are included in its corridor.
+     */
+    private static final int CORRIDOR_RADIUS = 1;
+
+    /**
+     * The graph over the full-resolution image.
+     */
+    private final ImageGraph fine;
+
+    /**
+     * The graph over the downsampled image.
+     */
+    private final ImageGraph coarse;
+
+    /**
+     * The factor by which `coarse`'s image is smaller than `fine`'s in each dimension.
+     */
+    private final int factor;
+
+    /**
+     * The name of the weight function (as recognized by `ScissorsWeights`) to refine paths with.
+     */
+    private final String weightName;
+
+    /**
+     * `corridorMarks[id] == corridorEpoch` if and only if the coarse pixel with ID `id` belongs to
+     * the corridor of the current refinement.  Guarded by `this`.
+     */
+    private final int[] corridorMarks;
+
+    /**
+     * Identifies the current refinement in `corridorMarks`.  Guarded by `this`.
+     */
+    private int corridorEpoch;
+
+    /**
+     * Scratch space for converting refined paths to PolyLines.  Guarded by `this`.
+     */
+    private final PolyLineBuffer buffer = new PolyLineBuffer();
+
+    /**
+     * Create a pyramid over the image of `fine` whose coarse level is smaller by `factor` in each
+     * dimension, refining paths with the weight function named `weightName`.  Requires `factor` is
+     * at least 2.  Takes time proportional to the size of the image, so must be called from a
+     * background thread.
+     */
+    ImagePyramid(ImageGraph fine, int factor, String weightName) {
+        assert factor >= 2;
+        this.fine = fine;
+        this.factor = factor;
+        this.weightName = weightName;
+        coarse = fine.downsampled(factor);
+        corridorMarks = new int[coarse.vertexCount()];
+        // Prepare the full-resolution weigher here rather than in the first refinement, which may
+        //  run on the EDT when a point is committed.
+        fine.solvers(weightName).weigher().ensureComputed();
+    }
+
+    /**
+     * Return the graph over the downsampled image, in which coarse paths should be found.
+     */
+    ImageGraph coarse() {
+        return coarse;
+    }
+
+    /**
+     * Return the factor by which the coarse image is smaller than the full-resolution image.
+     */
+    int factor() {
+        return factor;
+    }
+
+    /**
+     * Return the ID of the coarse pixel covering the full-resolution pixel with ID `fineId`.
+     */
+    int toCoarse(int fineId) {
+        int x = fineId % fine.width();
+        int y = fineId / fine.width();
+        return (y / factor) * coarse.width() + x / factor;
+    }
+
+    /**
+     * Return the IDs of the coarse pixels along the path in `coarsePaths` (which must have been
+     * found in `coarse()`) to the coarse pixel covering the full-resolution pixel with ID
+     * `fineDstId`, ordered from that pixel back to the start.  Takes time proportional to the
+     * length of the path, so it can be called wherever `coarsePaths` may be queried, and the
+     * result can be refined by `refinePath()` on any thread.  Throws IllegalArgumentException if
+     * that coarse pixel has not been discovered by `coarsePaths`.
+     */
+    int[] coarsePathTo(PathfindingSnapshot coarsePaths, int fineDstId) {
+        IntStream.Builder path = IntStream.builder();
+        coarsePaths.forEachOnPathTo(toCoarse(fineDstId), path::add);
+        return path.build().toArray();
+    }
+
+    /**
+     * Return a full-resolution path from the pixel with ID `fineStartId` to the pixel with ID
+     * `fineDstId`, refined from `coarsePath` (as returned by `coarsePathTo()` for `fineDstId`
+     * from paths starting at the coarse pixel covering `fineStartId`).  Only the pixels of a
+     * corridor around the coarse path are searched, so this usually takes time proportional to the
+     * corridor rather than to the image.  Returns null if `token` (which may be null) is cancelled
+     * before the path is found.
+     */
+    synchronized PolyLine refinePath(int[] coarsePath, int fineStartId, int fineDstId,
+            CancellationToken token) {
+        assert coarsePath[coarsePath.length - 1] == toCoarse(fineStartId);
+        beginCorridor();
+        for (int coarseId : coarsePath) {
+            markCorridor(coarseId);
+        }
+
+        // Search the full-resolution graph, skipping any pixels outside the corridor.  Weighing
+        //  edges in the full graph (rather than in a crop of it) gives pixels at the corridor's
+        //  edge their true weights instead of those of the image's border.
+        ShortestPathsPool solvers = fine.solvers(weightName);
+        ShortestPathsSolver solver = solvers.acquire();
+        try {
+            int fineWidth = fine.width();
+            solver.setStart(fineStartId);
+            solver.restrictTo(id -> inCorridor(id % fineWidth, id / fineWidth));
+            solver.setCancellationToken(token);
+            PathfindingSnapshot paths = solver.extendSearchUntil(fineDstId);
+            if (!paths.settled(fineDstId)) {
+                return null;
+            }
+            return fine.pathToPolyLine(paths, fineDstId, buffer);
+        } finally {
+            solvers.release(solver);
+        }
+    }
+
+    /**
+     * Start a new corridor containing no pixels.
+     */
+    private void beginCorridor() {
+        if (corridorEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(corridorMarks, 0);
+            corridorEpoch = 0;
+        }
+        corridorEpoch += 1;
+    }
+
+    /**
+     * Add the coarse pixels within `CORRIDOR_RADIUS` of the coarse pixel with ID `coarseId` to the
+     * current corridor.
+     */
+    private void markCorridor(int coarseId) {
+        int cx = coarseId % coarse.width();
+        int cy = coarseId / coarse.width();
+        int x0 = Math.max(0, cx - CORRIDOR_RADIUS);
+        int x1 = Math.min(coarse.width() - 1, cx + CORRIDOR_RADIUS);
+        int y0 = Math.max(0, cy - CORRIDOR_RADIUS);
+        int y1 = Math.min(coarse.height() - 1, cy + CORRIDOR_RADIUS);
+        for (int y = y0; y <= y1; ++y) {
+            for (int x = x0; x <= x1; ++x) {
+                corridorMarks[y * coarse.width() + x] = corridorEpoch;
+            }
+        }
+    }
+
+    /**
+     * Return whether the full-resolution pixel at (`x`, `y`) is covered by the current corridor.
+     */
+    private boolean inCorridor(int x, int y) {
+        return corridorMarks[(y / factor) * coarse.width() + x / factor] == corridorEpoch;
+    }
+}
@@ -0,0 +1,198 @@
+package scissors;
+
+import graph.CancellationToken;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the pathfinding jobs of one selection model on a pool of background threads owned by this
+ * package, rather than on SwingWorker's small pool shared with the rest of the application.
+ * <p>
+ * At most one job per executor is current: submitting a job cancels the previous one, since a
+ * model only wants results for its newest request (such as the most recently clicked point).  A
+ * superseded job that has not started yet is removed from the queue so that it never runs, and
+ * one that is running is asked to stop through its cancellation token, which its solvers check as
+ * they settle vertices.  Only used on the EDT.
+ */
+class PathfindingExecutor {
+
+    /**
+     * The number of threads shared by every executor.  Superseded jobs stop promptly, so each
+     * model keeps at most one thread busy; the rest serve other models (or a superseded job that
+     * is finishing work it cannot interrupt, such as filling a weigher's tables).
+     */
+    private static final int THREAD_COUNT =
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * The threads that run every executor's jobs.  Daemon threads, so that pending searches do not
+     * keep the application alive.
+     */
+    private static final ThreadPoolExecutor threads = createThreads();
+
+    /**
+     * The job most recently submitted to this executor, or null if none has been.
+     */
+    private Job<?, ?> current;
+
+    private static ThreadPoolExecutor createThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "pathfinding-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start running `job` in the background, cancelling the previously submitted job (if it has
+     * not already finished).  Requires `job` has not been submitted before.
+     */
+    void submit(Job<?, ?> job) {
+        if (current != null) {
+            current.cancel();
+        }
+        current = job;
+        threads.execute(job.future);
+    }
+
+    /**
+     * A cancellable computation run by a `PathfindingExecutor`, with the subset of SwingWorker's
+     * interface that our selection model uses: intermediate results are published to the EDT,
+     * progress changes are reported on the EDT, and `done()` runs on the EDT once the job finishes
+     * or is cancelled.  `T` is the type of the final result and `V` that of intermediate results.
+     */
+    abstract static class Job<T, V> {
+
+        /**
+         * Cancelled when this job is; should be given to any solver that this job runs.
+         */
+        private final CancellationToken token = new CancellationToken();
+
+        /**
+         * Runs `doInBackground()` and schedules `done()` on the EDT when it completes (or as soon
+         * as it is cancelled, as with SwingWorker).
+         */
+        private final FutureTask<T> future = new FutureTask<>(this::doInBackground) {
+            @Override
+            protected void done() {
+                SwingUtilities.invokeLater(Job.this::done);
+            }
+        };
+
+        /**
+         * The most recent intermediate result that has not been delivered to `process()` yet, or
+         * null if there is none.
+         */
+        private final AtomicReference<V> unprocessed = new AtomicReference<>();
+
+        /**
+         * The most recently reported progress percentage.
+         */
+        private volatile int progress;
+
+        /**
+         * Compute and return this job's result.  Runs on a background thread, so it must not
+         * access the state of the model that created this job.  Should return promptly (with any
+         * value) once `isCancelled()`.
+         */
+        protected abstract T doInBackground();
+
+        /**
+         * Receive the most recent intermediate result passed to `publish()`.  Runs on the EDT;
+         * intermediate results published in quick succession are coalesced (see `coalesce()`), so
+         * only one is delivered.  Does nothing by default.
+         */
+        protected void process(V latest) {
+        }
+
+        /**
+         * Return the intermediate result to deliver in place of `older` and `newer`, which were
+         * published in that order before `older` could be delivered.  May be called on any thread,
+         * possibly more than once for the same results, so it must not modify them.  Returns
+         * `newer` by default.
+         */
+        protected V coalesce(V older, V newer) {
+            return newer;
+        }
+
+        /**
+         * Respond to the reported progress changing from `oldProgress` to `newProgress`.  Runs on
+         * the EDT.  Does nothing by default.
+         */
+        protected void progressChanged(int oldProgress, int newProgress) {
+        }
+
+        /**
+         * Respond to this job finishing or being cancelled.  Runs on the EDT.  Does nothing by
+         * default.
+         */
+        protected void done() {
+        }
+
+        /**
+         * Deliver `chunk` (which must not be null) to `process()` on the EDT.  Called from
+         * `doInBackground()`.
+         */
+        protected final void publish(V chunk) {
+            V previous = unprocessed.getAndAccumulate(chunk,
+                    (older, newer) -> (older == null) ? newer : coalesce(older, newer));
+            if (previous == null) {
+                SwingUtilities.invokeLater(() -> process(unprocessed.getAndSet(null)));
+            }
+        }
+
+        /**
+         * Report that this job is `newProgress` percent complete.  Listeners are notified on the
+         * EDT if this differs from the previous report.  Called from `doInBackground()`.
+         */
+        protected final void setProgress(int newProgress) {
+            int oldProgress = progress;
+            if (newProgress != oldProgress) {
+                progress = newProgress;
+                SwingUtilities.invokeLater(() -> progressChanged(oldProgress, newProgress));
+            }
+        }
+
+        /**
+         * Return the token that is cancelled when this job is.
+         */
+        protected final CancellationToken token() {
+            return token;
+        }
+
+        /**
+         * Return whether this job has been cancelled (possibly by being superseded).
+         */
+        final boolean isCancelled() {
+            return token.isCancelled();
+        }
+
+        /**
+         * Cancel this job.  If it has not started running, it never will; otherwise its solvers
+         * are asked to stop.  `done()` will then run on the EDT (and `get()` will throw
+         * CancellationException), even if the computation is still winding down.
+         */
+        final void cancel() {
+            token.cancel();
+            future.cancel(false);
+            threads.remove(future);
+        }
+
+        /**
+         * Return the result of `doInBackground()`.  Throws CancellationException if this job was
+         * cancelled, or ExecutionException wrapping anything thrown by `doInBackground()`.  Blocks
+         * until the job finishes, so should only be called from `done()`.
+         */
+        final T get() throws InterruptedException, ExecutionException {
+            return future.get();
+        }
+    }
+}
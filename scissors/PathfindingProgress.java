@@ -0,0 +1,34 @@
+package scissors;
+
+import java.awt.Rectangle;
+
+/**
+ * A progress report from a search for shortest paths in an image, carrying only what a view needs
+ * in order to draw that progress.  `settledCount` is the number of pixels whose shortest paths are
+ * known, and `frontierSize` is the number discovered but not yet settled (or -1 if the search does
+ * not track it).  `statuses` reports the status of each pixel; it views the search's own storage,
+ * which the search keeps updating in place, so it is never copied and may report progress made
+ * after this report.  `changedBounds` is the bounding box (in image coordinates) of the pixels
+ * whose status may have changed since the previous report of the same search, and must not be
+ * modified.
+ */
+public record PathfindingProgress(int settledCount, int frontierSize, Rectangle changedBounds,
+        ImagePathsSnapshot statuses) {
+
+    /**
+     * Return a report combining this report with `newer`, a later report of the same search:
+     * `newer`'s counts and statuses, and the pixels changed since the report before this one.
+     */
+    PathfindingProgress followedBy(PathfindingProgress newer) {
+        Rectangle changed;
+        if (changedBounds.isEmpty()) {
+            changed = newer.changedBounds();
+        } else if (newer.changedBounds().isEmpty()) {
+            changed = changedBounds;
+        } else {
+            changed = changedBounds.union(newer.changedBounds());
+        }
+        return new PathfindingProgress(newer.settledCount(), newer.frontierSize(), changed,
+                newer.statuses());
+    }
+}
@@ -47,6 +47,13 @@ public class PolyLineBuffer {
         size += 1;
     }
 
+    /**
+     * Removes all points from this buffer (keeping its capacity for reuse).
+     */
+    public void clear() {
+        size = 0;
+    }
+
     public int[] xs() {
         return xs;
     }
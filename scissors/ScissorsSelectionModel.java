@@ -2,20 +2,21 @@ package scissors;
 
 import static selector.SelectionModel.SelectionState.*;
 
+import graph.BidirectionalShortestPaths;
 import graph.PathfindingSnapshot;
-import graph.ShortestPaths;
+import graph.SearchProgress;
+import graph.ShortestPathsSolver;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.beans.PropertyChangeEvent;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import javax.swing.SwingWorker;
-import javax.swing.SwingWorker.StateValue;
+import java.util.concurrent.atomic.AtomicInteger;
 import selector.PolyLine;
 import selector.SelectionModel;
 
@@ -25,6 +26,60 @@ import selector.SelectionModel;
  */
 public class ScissorsSelectionModel extends SelectionModel {
 
+    /**
+     * Images with at least this many pixels are searched in "region of interest" mode: a search
+     * from a new point only settles a window around it, which grows on demand when a path to a
+     * pixel outside of it is requested.  The next point is nearly always placed near the last
+     * one, so settling the whole of such a large image would mostly be wasted work.
+     */
+    private static final int ROI_MIN_PIXELS = 1 << 24;
+
+    /**
+     * The initial distance (in pixels, along each axis) from the starting point of a search in
+     * region of interest mode to the edges of its window.
+     */
+    private static final int ROI_INITIAL_RADIUS = 256;
+
+    /**
+     * Images with at least this many pixels are traced coarse-to-fine: searches from each point run
+     * on a downsampled copy of the image, and each live-wire path is refined at full resolution
+     * within a corridor around its coarse path (see `ImagePyramid`).  Even a region of interest
+     * search is too slow at full resolution for scans this large.
+     */
+    private static final int PYRAMID_MIN_PIXELS = 1 << 26;
+
+    /**
+     * The maximum number of pixels in the downsampled image used in coarse-to-fine mode.
+     */
+    private static final int PYRAMID_COARSE_PIXELS = 1 << 22;
+
+    /**
+     * The maximum number of live-wire paths to remember.  The cursor tends to linger on and
+     * revisit a small set of pixels, and repaints unrelated to mouse motion ask for the same path
+     * again.
+     */
+    private static final int LIVE_WIRE_CACHE_SIZE = 64;
+
+    /**
+     * The wall-clock time (in nanoseconds) that searches aim to spend between progress reports:
+     * about one frame at 60 Hz.  Each batch of a search is sized from the measured rate at which
+     * vertices are settled so that it takes about this long.
+     */
+    private static final long PROGRESS_INTERVAL_NANOS = 16_000_000;
+
+    /**
+     * The rate (in vertices per nanosecond) at which the first search on a model is assumed to
+     * settle vertices, before any rate has been measured.  Deliberately low, so that the first
+     * batch stays within budget even before the solver has been compiled by the JIT.
+     */
+    private static final double INITIAL_SETTLE_RATE = 0.001;
+
+    /**
+     * The fewest vertices settled by a batch of a search (unless the search finishes first), so
+     * that timing noise cannot shrink batches until publishing dominates.
+     */
+    private static final int MIN_BATCH_SIZE = 1024;
+
     /**
      * The graph representation of the current image being rendered and traced (null if inherited
      * `img` is null).
@@ -37,12 +92,113 @@ public class ScissorsSelectionModel extends SelectionModel {
      */
     private String weightName;
 
+    /**
+     * Idle shortest-paths solvers for the graph our searches run on, reused across searches so
+     * that each click does not allocate and clear per-pixel storage.  Obtained from that graph, so
+     * it is shared with any other model tracing the same image.  Looked up when first needed; null
+     * if `graph` is null or if no search has been started since `graph` was last changed.
+     */
+    private ShortestPathsPool solvers;
+
+    /**
+     * The image pyramid used to trace `graph` coarse-to-fine, if its image has at least
+     * `PYRAMID_MIN_PIXELS` pixels.  In that case, `paths`, `pendingPaths`, and `solvers` refer to
+     * the pyramid's coarse graph rather than to `graph`.  Built in the background by the first
+     * search on `graph` and adopted from its first progress report, so it is never null while
+     * either of `paths` and `pendingPaths` is not; null if `graph` is too small or is null.
+     */
+    private ImagePyramid pyramid;
+
+    /**
+     * Runs the jobs that refine live-wire paths at full resolution in coarse-to-fine mode.  Kept
+     * apart from `executor` so that refining a path does not cancel a search, while each
+     * refinement supersedes the previous one, since only the path to the pixel most recently under
+     * the cursor is wanted.
+     */
+    private final PathfindingExecutor refiner = new PathfindingExecutor();
+
+    /**
+     * The job most recently submitted to `refiner`, or null if it has finished (or none has been
+     * submitted since our selection was reset).
+     */
+    private RefineWorker refineWorker;
+
+    /**
+     * The live-wire path most recently refined in the background, which is served while the path
+     * to the pixel now under the cursor is being refined (as long as it starts at our selection's
+     * last point).  Null if no path has been refined yet.
+     */
+    private PolyLine refinedWire;
+
     /**
      * The shortest paths computed from the last committed point for the current image.  May be null
      * if we are not in the SELECTING state.
      */
     private PathfindingSnapshot paths;
 
+    /**
+     * The solver from `solvers` whose storage `paths` views, or null if `paths` is null or was not
+     * produced by a pooled solver.  Returned to the pool when `paths` is replaced.  `growWorker`
+     * resumes this solver while holding its lock, so the EDT takes that lock before touching the
+     * solver; since `growWorker` is always stopped first, this only ever waits for it to notice.
+     */
+    private ShortestPathsSolver pathsSolver;
+
+    /**
+     * If `paths` came from a region of interest search, the radius of the window around its
+     * starting point that it is known to have settled; -1 if `paths` settled every pixel (or is
+     * null).  If non-negative, `pathsSolver` is not null and can be extended to grow the window.
+     */
+    private int pathsWindowRadius = -1;
+
+    /**
+     * Resumes the region of interest search behind `paths` in the background to grow its window
+     * (see `growWindow()`).  Kept apart from `executor` so that growing a window, which is
+     * requested while painting the live wire, neither cancels a search nor changes our state.
+     */
+    private final PathfindingExecutor grower = new PathfindingExecutor();
+
+    /**
+     * The job most recently submitted to `grower`, or null if it has finished or been stopped
+     * (see `stopGrowingWindow()`).  While not null, it may be extending `pathsSolver`.
+     */
+    private GrowWindowWorker growWorker;
+
+    /**
+     * The latest snapshot of `pathsSolver` published by a job growing the window of `paths`, which
+     * may have settled pixels outside that window, or null if there is none.  Views the same
+     * search as `paths`, so it is cleared whenever `paths` changes.
+     */
+    private PathfindingSnapshot grownPaths;
+
+    /**
+     * Reusable storage for converting paths from `paths` to PolyLines, so that live-wire queries
+     * do not allocate per pixel.  Only used on the EDT.
+     */
+    private final PolyLineBuffer pathBuffer = new PolyLineBuffer();
+
+    /**
+     * The live-wire paths most recently computed from `paths`, keyed by the ID of their
+     * destination pixel and ordered from least to most recently used.  Holds at most
+     * `LIVE_WIRE_CACHE_SIZE` entries, and is cleared whenever `paths` changes.  Only used on the
+     * EDT.
+     */
+    private final Map<Integer, PolyLine> liveWireCache =
+            new LinkedHashMap<>(2 * LIVE_WIRE_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, PolyLine> eldest) {
+                    return size() > LIVE_WIRE_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * Shortest-path trees from the control points of our selection, computed in the background
+     * while we are SELECTED so that moving a point can usually reroute its segments without a
+     * search.  Null if we are not SELECTED (or PROCESSING a move), or if our image is traced
+     * coarse-to-fine.
+     */
+    private AnchorTrees anchorTrees;
+
     /**
      * The most recent intermediate paths from the current shortest paths solve.  Null if no ongoing
      * solve or if solve has not reported any progress yet.
@@ -50,13 +206,47 @@ public class ScissorsSelectionModel extends SelectionModel {
     private PathfindingSnapshot pendingPaths;
 
     /**
-     * The SwingWorker currently being used to solve for shortest paths on a background thread. Note
-     * that "progress" events from `worker` will be forwarded to our own property change listeners.
-     * Null if not PROCESSING.  Note: To support asynchronous cancellation, workers should not make
-     * any changes to this model or forward any events if `worker` does not currently point to
-     * them.
+     * The most recent progress report from the current shortest paths solve, whose statuses view
+     * `pendingPaths`.  Null under the same conditions as `pendingPaths`.
      */
-    private ShortestPathsWorker worker;
+    private PathfindingProgress pendingProgress;
+
+    /**
+     * The live-wire path most recently served from `pendingPaths`, and the ID of its destination
+     * pixel (-1 if there is none).  Paths to settled pixels are final, so this stays valid until
+     * the current solve is replaced, even as `pendingPaths` is updated.
+     */
+    private PolyLine pendingWire;
+    private int pendingWireId = -1;
+
+    /**
+     * Runs our workers in the background.  Submitting a worker supersedes (cancels) the previous
+     * one, so abandoned searches stop promptly and never start if they have not yet.
+     */
+    private final PathfindingExecutor executor = new PathfindingExecutor();
+
+    /**
+     * The job currently being used to solve for shortest paths on a background thread (a
+     * `ShortestPathsWorker`, `SettlePixelWorker`, or `MovePointWorker`).  Note that "progress"
+     * events from `worker` will be forwarded to our own property change listeners.  Null if not
+     * PROCESSING.
+     * Note: To support asynchronous cancellation, workers should not make any changes to this model
+     * or forward any events if `worker` does not currently point to them.
+     */
+    private PathfindingExecutor.Job<?, ?> worker;
+
+    /**
+     * The rate (in vertices per nanosecond) at which the most recently completed search settled
+     * vertices, including the cost of reporting its progress.  Sizes the first batch of the next
+     * search, so that small images are searched in a single batch.
+     */
+    private double settleRate = INITIAL_SETTLE_RATE;
+
+    /**
+     * The time (in nanoseconds) from when the most recently completed search from a point was
+     * requested until its paths were ready, or -1 if no such search has completed.
+     */
+    private long lastSearchNanos = -1;
 
     /**
      * The state we last transitioned into PROCESSING from (and which we will return to if the
@@ -83,11 +273,18 @@ public class ScissorsSelectionModel extends SelectionModel {
     public ScissorsSelectionModel(String weightName, SelectionModel copy) {
         super(copy);
         this.weightName = weightName;
-        if (image() != null) {
+        if (copy instanceof ScissorsSelectionModel other && other.graph != null) {
+            // Share the other model's graph (and thereby its cached weighers) for the same image.
+            graph = other.graph;
+        } else if (image() != null) {
             graph = new ImageGraph(image());
         }
+        solvers = null;
+        pyramid = null;
         if (state() == SELECTING) {
             findPaths(graph.idAt(lastPoint()));
+        } else if (state() == SELECTED) {
+            startAnchorTrees();
         }
     }
 
@@ -104,6 +301,9 @@ public class ScissorsSelectionModel extends SelectionModel {
         // we need to maintain our invariant regarding `worker` by setting to null.  Any running
         // worker will notice this and refrain from changing us.
         worker = null;
+        setPaths(null, null, -1);
+        stopRefining();
+        refinedWire = null;
 
         super.reset();
     }
@@ -121,6 +321,21 @@ public class ScissorsSelectionModel extends SelectionModel {
         } else {
             graph = null;
         }
+        solvers = null;
+        pyramid = null;
+    }
+
+    @Override
+    protected void setState(SelectionState newState) {
+        // Overridden to precompute paths for moving control points while a finished selection is
+        //  idle, and to stop doing so once it is no longer finished.
+        super.setState(newState);
+
+        if (newState == SELECTED) {
+            startAnchorTrees();
+        } else if (newState != PROCESSING) {
+            stopAnchorTrees();
+        }
     }
 
     @Override
@@ -151,8 +366,11 @@ public class ScissorsSelectionModel extends SelectionModel {
             reset();
         } else {
             int committedId = graph.idAt(start);
-            PolyLine newSegment = graph.pathToPolyLine(paths.pathTo(committedId));
-            selection.addLast(newSegment);
+            if (!knowsPathTo(committedId)) {
+                settleThenCommit(committedId, true);
+                return;
+            }
+            selection.addLast(committedPath(committedId));
             setState(SELECTED);
         }
     }
@@ -188,24 +406,274 @@ public class ScissorsSelectionModel extends SelectionModel {
         int id = graph.idAt(p);
         PathfindingSnapshot snapshot = paths;
         if (snapshot != null){
-            selection.addLast(liveWire(p));
+            // A click outside the window of a region of interest search is only committed once
+            //  a background search has settled it, rather than searching on the EDT.
+            if (!knowsPathTo(id)) {
+                settleThenCommit(id, false);
+                return;
+            }
+            selection.addLast(committedPath(id));
             findPaths(id);
         }
 
     }
 
+    /**
+     * Return the pool of solvers for the graph that our searches run on (see `searchGraph()`),
+     * looking it up if necessary.
+     */
+    private ShortestPathsPool solvers() {
+        if (solvers == null) {
+            solvers = searchGraph().solvers(weightName);
+        }
+        return solvers;
+    }
+
+    /**
+     * Return whether our current image is traced coarse-to-fine.
+     */
+    private boolean usesPyramid() {
+        return graph.vertexCount() >= PYRAMID_MIN_PIXELS;
+    }
+
+    /**
+     * Return the factor by which our image is downsampled when it is traced coarse-to-fine, so that
+     * the coarse image has at most about `PYRAMID_COARSE_PIXELS` pixels.  Requires `usesPyramid()`.
+     */
+    private int pyramidFactor() {
+        int factor = (int) Math.ceil(Math.sqrt((double) graph.vertexCount()
+                / PYRAMID_COARSE_PIXELS));
+        return Math.max(2, factor);
+    }
+
+    /**
+     * Return the graph that searches from our selection's points run on: the coarse graph of our
+     * pyramid in coarse-to-fine mode, or `graph` otherwise.  Requires that `pyramid` has been
+     * built in the former case.
+     */
+    private ImageGraph searchGraph() {
+        return usesPyramid() ? pyramid.coarse() : graph;
+    }
+
+    /**
+     * Return the path from our selection's last point to the pixel with ID `id` according to our
+     * committed `paths` (or the growth of its window), refining it as necessary.  Requires
+     * `knowsPathTo(id)`.  In coarse-to-fine mode, this refines the path on the EDT, so the live
+     * wire refines its paths in the background instead (see `refineInBackground()`); any such
+     * refinement is stopped first, since the pyramid refines one path at a time and its result
+     * would be stale anyway.  Callers should prefer `committedPath()`, which reuses a path that
+     * the live wire has already refined.
+     */
+    private PolyLine pathFromLastPoint(int id) {
+        if (usesPyramid()) {
+            stopRefining();
+            return pyramid.refinePath(pyramid.coarsePathTo(paths, id), graph.idAt(lastPoint()),
+                    id, null);
+        }
+        PathfindingSnapshot snapshot = paths;
+        if (!snapshot.settled(id)) {
+            // Only settled by the search growing our window so far.
+            snapshot = grownPaths;
+        }
+        return graph.pathToPolyLine(snapshot, id, pathBuffer);
+    }
+
+    /**
+     * Return the path from our selection's last point to the pixel with ID `id` according to our
+     * committed `paths` (see `pathFromLastPoint()`), remembering it in `liveWireCache`.  Returns
+     * the live wire's path without recomputing it if it is already there.
+     */
+    private PolyLine committedPath(int id) {
+        PolyLine path = liveWireCache.get(id);
+        if (path == null) {
+            path = pathFromLastPoint(id);
+            liveWireCache.put(id, path);
+        }
+        return path;
+    }
+
+    /**
+     * Replace our committed `paths` with `newPaths`, which views the storage of `solver` (null if
+     * it was not produced by a pooled solver).  `windowRadius` is the radius of the window that
+     * `newPaths` has settled in region of interest mode, or -1 if it settled every pixel.  The
+     * solver behind the previous paths is returned to our pool, since nothing will query those
+     * paths again.  Any growth of the previous window is stopped.
+     */
+    private void setPaths(PathfindingSnapshot newPaths, ShortestPathsSolver solver,
+            int windowRadius) {
+        stopGrowingWindow();
+        if (pathsSolver != null && pathsSolver != solver) {
+            synchronized (pathsSolver) {
+                solvers().release(pathsSolver);
+            }
+        }
+        paths = newPaths;
+        pathsSolver = solver;
+        pathsWindowRadius = windowRadius;
+        grownPaths = null;
+        liveWireCache.clear();
+    }
+
+    /**
+     * Return whether the path from our selection's last point to the pixel with ID `id` is already
+     * known, so that `pathFromLastPoint()` can be called without searching.  This is only false in
+     * region of interest mode, for a pixel outside of the window that `paths` has settled that the
+     * growth of that window has not reached yet.  Requires that `paths` is not null.
+     */
+    private boolean knowsPathTo(int id) {
+        if (pathsWindowRadius < 0 || paths.settled(id)) {
+            return true;
+        }
+        PathfindingSnapshot grown = grownPaths;
+        return grown != null && grown.settled(id);
+    }
+
+    /**
+     * Transition to the PROCESSING state and resume the region of interest search behind `paths`
+     * in the background until it settles the pixel with ID `id` (leaving its window unchanged),
+     * then commit the segment to that pixel: as a new point if not `finishing`, or as the segment
+     * that closes our selection otherwise.  Used for clicks outside of the settled window, so that
+     * the search, which may cover most of a huge image, never runs on the EDT.  If cancelled (such
+     * as by undo), no segment is added.  Requires `!knowsPathTo(id)`.
+     */
+    private void settleThenCommit(int id, boolean finishing) {
+        stopGrowingWindow();
+        previousState = state();
+        setState(PROCESSING);
+
+        clearPendingPaths();
+        // The live wire keeps being served from the paths we have while we search.
+        pendingPaths = paths;
+        worker = new SettlePixelWorker(id, finishing);
+        executor.submit(worker);
+    }
+
+    /**
+     * Return the path from our selection's last point to the pixel with ID `id`, which lies
+     * outside of the window that `paths` has settled, if the search growing that window in the
+     * background has already settled it.  Otherwise, start growing the window to contain it
+     * (unless that is already underway) and return null; listeners are notified with a "live-wire"
+     * property change once the path is known.  Never changes our state, since it is called while
+     * painting.
+     */
+    private PolyLine grownLiveWire(int id) {
+        PolyLine cached = liveWireCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        PathfindingSnapshot grown = grownPaths;
+        if (grown != null && grown.settled(id)) {
+            PolyLine path = graph.pathToPolyLine(grown, id, pathBuffer);
+            liveWireCache.put(id, path);
+            return path;
+        }
+        growWindow(id);
+        return null;
+    }
+
+    /**
+     * Start resuming the region of interest search behind `paths` in the background until its
+     * window, grown by doubling its radius, contains the pixel with ID `id`, unless the window
+     * already being grown contains it.  The growth is adopted into `paths` once it finishes, and
+     * is stopped (keeping whatever the search has settled) whenever the EDT needs the solver or
+     * `paths` is replaced.  Requires that `paths` came from a region of interest search that has
+     * not settled that pixel (so it lies outside of the current window).
+     */
+    private void growWindow(int id) {
+        Point point = graph.getVertex(id).point();
+        if (growWorker != null && growWorker.window.contains(point)) {
+            return;
+        }
+        int startId = paths.start();
+        int radius = (growWorker != null) ? growWorker.radius : pathsWindowRadius;
+        do {
+            radius *= 2;
+        } while (!graph.windowAround(startId, radius).contains(point));
+
+        // Supersedes (cancels) any growth to a smaller window.
+        growWorker = new GrowWindowWorker(id, radius);
+        grower.submit(growWorker);
+    }
+
+    /**
+     * Stop growing the window of `paths` in the background, if that is underway.  The job releases
+     * `pathsSolver`'s lock promptly once cancelled, leaving the search resumable.
+     */
+    private void stopGrowingWindow() {
+        if (growWorker != null) {
+            growWorker.cancel();
+            growWorker = null;
+        }
+    }
+
+    /**
+     * Start computing shortest-path trees from the control points of our (finished) selection,
+     * reusing any trees from the previous computation whose control points have not moved.  Does
+     * nothing if our image is traced coarse-to-fine, since those trees would be as large as the
+     * image.
+     */
+    private void startAnchorTrees() {
+        AnchorTrees previous = anchorTrees;
+        stopAnchorTrees();
+        if (usesPyramid()) {
+            return;
+        }
+        int[] anchorIds = selection.stream().mapToInt(segment -> graph.idAt(segment.start()))
+                .toArray();
+        // Speculative searches must not compete with the user's, so they never run in parallel.
+        ShortestPathsPool treeSolvers = graph.solvers(weightName,
+                ShortestPathsPool.backgroundKindFor(graph.vertexCount()));
+        anchorTrees = new AnchorTrees(graph, treeSolvers, anchorIds, previous);
+    }
+
+    /**
+     * Stop computing shortest-path trees from our control points and discard them.
+     */
+    private void stopAnchorTrees() {
+        if (anchorTrees != null) {
+            anchorTrees.cancel();
+            anchorTrees = null;
+        }
+    }
+
+    /**
+     * Replace the segments before and after the control point with index `index` with `before` and
+     * `after`, which join its neighboring control points to its new location, `newPos`.
+     */
+    private void replaceAdjacentSegments(int index, Point newPos, PolyLine before,
+            PolyLine after) {
+        int beforeIndex = (index == 0) ? selection.size() - 1 : index - 1;
+        selection.set(beforeIndex, before);
+        selection.set(index, after);
+        if (index == 0) {
+            start = new Point(newPos);
+        }
+    }
+
+    /**
+     * Forget the intermediate results of the previous shortest paths solve, in preparation for
+     * starting a new one.
+     */
+    private void clearPendingPaths() {
+        pendingPaths = null;
+        pendingProgress = null;
+        pendingWire = null;
+        pendingWireId = -1;
+    }
+
     /**
      * Transition to the PROCESSING state and start solving for shortest paths from the vertex with
      * ID `startId`.  Preserves invariants associated with `worker`, `pendingPaths`, and
      * `previousState`.
      */
     private void findPaths(int startId) {
+        stopGrowingWindow();
         previousState = state();
         setState(PROCESSING);
 
-        pendingPaths = null;
+        clearPendingPaths();
         worker = new ShortestPathsWorker(startId);
-        worker.execute();
+        executor.submit(worker);
     }
 
     @Override
@@ -213,45 +681,44 @@ public class ScissorsSelectionModel extends SelectionModel {
         assert state() == SelectionState.SELECTED;
         assert selection.size() >= 2;
 
-        // Start solving for shortest paths from the moved point, which will give us the segments to
-        //  both the preceding and succeeding points.  This will transition us to the PROCESSING
-        //  state.
-        findPaths(graph.idAt(newPos));
-
-        // Our worker's `done()` method is sufficient for adding points, but we need to do more
-        //  in order to move one.  This is one way to tack additional work onto a task (it will run
-        //  on the EDT).
-        worker.addPropertyChangeListener(e -> {
-            ShortestPathsWorker src = (ShortestPathsWorker) e.getSource();
-            if ("state".equals(e.getPropertyName()) && e.getNewValue() == StateValue.DONE) {
-                // If the solve wasn't cancelled, use its results to compute the replacement
-                //  segments.
-                if (src.state() == Future.State.SUCCESS) {
-                    ListIterator<PolyLine> it = selection.listIterator(index + 1);
-                    PolyLine oldAfter = it.previous();
-                    var oaEnd = graph.vertexAt(oldAfter.end());
-                    // New segment is path from moved point to successor point
-                    it.set(graph.pathToPolyLine(paths.pathTo(oaEnd.id())));
-
-                    if (!it.hasPrevious()) {
-                        it = selection.listIterator(selection.size());
-                        start = new Point(newPos);
-                    }
-                    PolyLine oldBefore = it.previous();
-                    var obStart = graph.vertexAt(oldBefore.start());
-                    // New segment is the reverse of the path from the moved point to its
-                    //  predecessor point.
-                    it.set(graph.pathToPolyLine(paths.pathTo(obStart.id()).reversed()));
+        // Only the segments into and out of the moved point change, and each only needs a path
+        //  between two known points, so search between those points rather than from the moved
+        //  point to the whole image.  This will transition us to the PROCESSING state.
+        int beforeIndex = (index == 0) ? selection.size() - 1 : index - 1;
+        int predecessorId = graph.idAt(selection.get(beforeIndex).start());
+        int successorId = graph.idAt(selection.get(index).end());
 
-                    propSupport.firePropertyChange("selection", null, selection());
-                }
-            }
-        });
+        // The precomputed trees of the neighboring control points usually already contain both
+        //  paths, in which case no search is needed at all.
+        PolyLine before = null;
+        PolyLine after = null;
+        if (anchorTrees != null) {
+            int movedId = graph.idAt(newPos);
+            before = anchorTrees.pathFrom(beforeIndex, movedId, pathBuffer);
+            after = anchorTrees.pathTo(movedId, (index + 1) % selection.size(), pathBuffer);
+        }
+        if (before != null && after != null) {
+            replaceAdjacentSegments(index, newPos, before, after);
+            propSupport.firePropertyChange("selection", null, selection());
+            startAnchorTrees();
+            return;
+        }
+
+        previousState = state();
+        setState(PROCESSING);
+
+        clearPendingPaths();
+        worker = new MovePointWorker(index, newPos, predecessorId, successorId, before, after);
+        executor.submit(worker);
     }
 
     /**
      * Returns the "intelligent scissors" shortest path segment connecting our current selection's
-     * endpoint to `p`.
+     * endpoint to `p`.  While the search from a newly added point is running, the path is served
+     * from that search's latest snapshot if it has already settled `p`, and is null otherwise.  In
+     * region of interest mode, asking for a path to a pixel outside the window that our search has
+     * settled starts growing that window in the background (see `grownLiveWire()`), without
+     * changing our state.
      */
     @Override
     public PolyLine liveWire(Point p) {
@@ -263,24 +730,109 @@ public class ScissorsSelectionModel extends SelectionModel {
         //  Hint: The `ImageGraph` class provides methods that might help with steps 1 and 3.
 
         int id = graph.idAt(p);
+        if (state() == PROCESSING) {
+            return pendingLiveWire(id);
+        }
         PathfindingSnapshot snapshot = paths;
         if (snapshot != null) {
-            List<Integer> shortest = paths.pathTo(id);
-            return graph.pathToPolyLine(shortest);
+            if (pathsWindowRadius >= 0 && !snapshot.settled(id)) {
+                return grownLiveWire(id);
+            }
+            if (usesPyramid()) {
+                PolyLine cached = liveWireCache.get(id);
+                return (cached != null) ? cached : refineInBackground(snapshot, snapshot, id);
+            }
+            return committedPath(id);
         } else {
             return null;
         }
     }
 
     /**
-     * Return the most recent pathfinding snapshot produced by our "intelligent scissors"
-     * processing, which attempts to find good paths from the end of our selection to all other
-     * pixels in the image.  Returns null if our processing has not yet produced any results.
+     * Return the path from our selection's last point to the pixel with ID `id` according to
+     * `pendingPaths`, the latest snapshot of the search from that point that is still running, or
+     * null if that search has not settled the pixel yet (or no such search is running).  The
+     * snapshot views storage that the search keeps writing to on its own thread, which is safe
+     * without locking for settled pixels only.  The last path served is remembered, so repeated
+     * queries for the same pixel (such as one per progress report while the mouse is still) do
+     * not trace or refine it again.  In coarse-to-fine mode, the path is refined in the background
+     * (see `refineInBackground()`).
+     */
+    private PolyLine pendingLiveWire(int id) {
+        PathfindingSnapshot pending = pendingPaths;
+        if (pending == null) {
+            return null;
+        }
+        if (id == pendingWireId) {
+            return pendingWire;
+        }
+        if (usesPyramid()) {
+            if (!pending.settled(pyramid.toCoarse(id))) {
+                return null;
+            }
+            return refineInBackground(pending, worker, id);
+        }
+        if (!pending.settled(id)) {
+            return null;
+        }
+        PolyLine path = graph.pathToPolyLine(pending, id, pathBuffer);
+        pendingWire = path;
+        pendingWireId = id;
+        return path;
+    }
+
+    /**
+     * Start refining the live-wire path to the pixel with ID `id` from `coarsePaths` in the
+     * background, unless that refinement is already running, and return `refinedWire` in the
+     * meantime if it starts at our selection's last point (or null otherwise).  `source`
+     * identifies the search that `coarsePaths` came from: either our committed `paths` (in which
+     * case it is `coarsePaths` itself) or our current `worker`.  Once the refined path is ready,
+     * it is remembered for that search (in `liveWireCache` or as `pendingWire`) and listeners are
+     * notified with a "live-wire" property change so that they can draw it.  Requires
+     * coarse-to-fine mode and that `coarsePaths` has settled the coarse pixel covering `id`.
+     */
+    private PolyLine refineInBackground(PathfindingSnapshot coarsePaths, Object source, int id) {
+        if (refineWorker == null || refineWorker.fineDstId != id
+                || refineWorker.source != source) {
+            // Only the coarse path is read here, so the refinement never touches `coarsePaths`.
+            refineWorker = new RefineWorker(pyramid.coarsePathTo(coarsePaths, id), source, id);
+            refiner.submit(refineWorker);
+        }
+        PolyLine stale = refinedWire;
+        return (stale != null && stale.start().equals(lastPoint())) ? stale : null;
+    }
+
+    /**
+     * Stop refining a live-wire path in the background, if that is underway.  The job releases the
+     * pyramid promptly once cancelled.
+     */
+    private void stopRefining() {
+        if (refineWorker != null) {
+            refineWorker.cancel();
+            refineWorker = null;
+        }
+    }
+
+    /**
+     * Return the most recent progress report from our "intelligent scissors" processing, which
+     * attempts to find good paths from the end of our selection to all other pixels in the image.
+     * Returns null if our processing has not yet produced any results.
      */
     @Override
-    public ImagePathsSnapshot getProcessingProgress() {
+    public PathfindingProgress getProcessingProgress() {
         assert state() == PROCESSING;
-        return (pendingPaths != null) ? new ImagePathsSnapshot(graph, pendingPaths) : null;
+        return pendingProgress;
+    }
+
+    /**
+     * Return the time (in milliseconds) from when the most recently completed search from a
+     * selection point was requested (such as by clicking to add the point) until its paths were
+     * ready for live-wire queries, or -1 if no such search has completed.  Listeners are notified
+     * of each new measurement with a "search-millis" property change.  Useful for monitoring
+     * responsiveness.
+     */
+    public long lastSearchMillis() {
+        return (lastSearchNanos < 0) ? -1 : lastSearchNanos / 1_000_000;
     }
 
     @Override
@@ -288,137 +840,424 @@ public class ScissorsSelectionModel extends SelectionModel {
         assert state() == PROCESSING;
 
         if (worker != null) {
-            worker.cancel(false);
+            worker.cancel();
         }
     }
 
 
     /**
-     * SwingWorker for computing shortest paths and periodically updating progress.  This is an
-     * inner class, meaning it has access to all fields of its containing TraceComponent. It
-     * publishes preliminary pathfinding results (containing settled and frontier nodes) and returns
-     * the final best paths (or null if cancelled).
+     * Job for computing shortest paths and periodically updating progress.  This is an inner
+     * class, meaning it has access to all fields of its containing TraceComponent. It publishes
+     * preliminary pathfinding results (containing settled and frontier nodes) and returns the final
+     * best paths (or null if cancelled).
      */
     private class ShortestPathsWorker
-            extends SwingWorker<PathfindingSnapshot, PathfindingSnapshot> {
+            extends PathfindingExecutor.Job<PathfindingSnapshot, PathfindingProgress> {
 
         /**
-         * The shortest-paths solver this worker will use.  After construction, must only be
-         * accessed from the background thread.
+         * Values of `handoff`: our background task may still be using `pathfinder`, has finished
+         * with results for our outer model to adopt, or our outer model has declined our results.
          */
-        private final ShortestPaths<ImageVertex, ImageEdge> pathfinder;
+        private static final int IN_USE = 0;
+        private static final int FINISHED = 1;
+        private static final int DECLINED = 2;
 
         /**
-         * Construct a worker that, when executed, will find the shortest paths from the vertex with
-         * ID `startId` to every pixel in our outer model's `image`.  "progress" events will be
-         * forwarded to our outer model's listeners.  This must be called from the EDT.
+         * The pool of solvers for `graph` that `pathfinder` is acquired from (which creates
+         * parallel solvers for large images on multi-core machines).  Set by our background task.
          */
-        public ShortestPathsWorker(int startId) {
-            pathfinder = new ShortestPaths<>(
-                    graph, ScissorsWeights.makeWeigher(weightName, graph));
-            pathfinder.setStart(startId);
+        private ShortestPathsPool solverPool;
 
-            // Forward progress property changes to outer model's listeners (as long as we are
-            // still the active solver).
-            addPropertyChangeListener((PropertyChangeEvent evt) -> {
-                if ("progress".equals(evt.getPropertyName()) && worker == this) {
-                    propSupport.firePropertyChange(evt);
-                }
-            });
-        }
+        /**
+         * The shortest-paths solver this worker uses, acquired from `solverPool` by our background
+         * task (and null until then).  If our results are adopted, our outer model takes over the
+         * solver; otherwise it is returned to the pool once our task has finished with it.
+         */
+        private ShortestPathsSolver pathfinder;
 
         /**
-         * Solve for shortest paths and return the results.  Periodically publish progress
-         * percentage and preliminary shortest paths.  It is assumed that this is generally not
-         * called from the EDT.  Returns null if cancelled.
+         * Decides who returns `pathfinder` to `solverPool` if our results are not adopted.  Our
+         * background task moves it from IN_USE to FINISHED when it
+         * returns results, and our outer model moves it from IN_USE to DECLINED when it will not
+         * adopt them; whichever side finds that the other has already moved it releases the
+         * solver.  A task that returns no results releases its solver itself.
          */
-        @Override
-        public PathfindingSnapshot doInBackground() {
-            // This is executed on a separate thread; do not access outer model's fields!
+        private final AtomicInteger handoff = new AtomicInteger(IN_USE);
 
-            // TODO A6.2c: Implement this method as specified.  In more detail, your implementation
-            //  should do the following:
-            //  1. Repeatedly extend the search on `pathfinder` until all paths have been found.
-            //     The batch size should be small enough so that the progress bar will update
-            //     smoothly (no more than 10000).
-            //  2. After each extension of the search, report the percentage of vertices that have
-            //     been settled as our progress.
-            //  3. Also after each extension, use `publish()` to deliver the current results
-            //     snapshot over to the EDT (where it will appear as an argument to `process()`).
-            //  4. Each iteration should check whether this SwingWorker has been cancelled.  If so,
-            //     return immediately.
-            //  5. After all paths have been found, return the final pathfinding results.
-            //  Since this may execute concurrently with other methods in the same class, it is only
-            //  safe to use a subset of its fields and methods, including: `pathfinder`,
-            //  `setProgress()`, `publish()`, and `isCancelled()`.
-            //  References:
-            //  [1] https://docs.oracle.com/javase/tutorial/uiswing/concurrency/worker.html
-            //  [2] https://docs.oracle.com/en/java/javase/21/docs/api/java.desktop/javax/swing/SwingWorker.html#isCancelled()
+        /**
+         * The vertex ID that our search starts from, in `graph` once our background task has set
+         * it (and in our outer model's graph until then).
+         */
+        private int startId;
 
-            try {
-                // Initialize variables
-                int totalVertices = pathfinder.vertexCount();
-                int settledVertices = 0;
-
-                // Repeat until all paths have been found
-                while (settledVertices < totalVertices) {
-                    // Check if the worker has been cancelled
-                    if (isCancelled()) {
-                        return null;
-                    }
+        /**
+         * The value of `System.nanoTime()` when this worker was created (in response to the
+         * request, such as a click, that started our search).
+         */
+        private final long startNanos;
 
-                    // Extend the search on pathfinder with a batch size
-                    int batchSize = Math.min(10000,
-                            totalVertices - settledVertices); // Adjust batch size as needed
-                    PathfindingSnapshot snapshot = pathfinder.extendSearch(batchSize);
-
-                    // Update settled vertices count
-                    settledVertices = 0;
-                    for (int id = 0; id < totalVertices; id++) {
-                        if (snapshot.settled(id)) {
-                            settledVertices++;
-                        }
-                    }
+        /**
+         * The graph our outer model was tracing when this worker was created.
+         */
+        private final ImageGraph imageGraph;
 
-                    // Calculate progress percentage
-                    int progress = (int) (((double) settledVertices / totalVertices) * 100);
+        /**
+         * The name of the weight function our outer model was using when this worker was created.
+         */
+        private final String weightName;
 
-                    // Update progress
-                    setProgress(progress);
+        /**
+         * The pyramid our outer model traces `imageGraph` with in coarse-to-fine mode, or null
+         * otherwise.  If our outer model had not built it yet when this worker was created, our
+         * background task builds it (see `prepare()`) and our outer model adopts it from our
+         * results.
+         */
+        private ImagePyramid pyramid;
 
-                    // Publish current results snapshot
-                    publish(snapshot);
-                }
+        /**
+         * Whether our outer model traces `imageGraph` coarse-to-fine.
+         */
+        private final boolean coarseToFine;
+
+        /**
+         * The weigher used by our solver, whose tables must be filled before searching.  Set by
+         * our background task.
+         */
+        private CachingWeigher weigher;
+
+        /**
+         * The graph to search: `imageGraph`, or the coarse graph of `pyramid` in coarse-to-fine
+         * mode.  Set by our background task.
+         */
+        private ImageGraph graph;
+
+        /**
+         * The window of pixels that a region of interest search must settle, or null if we are to
+         * find paths to every pixel.
+         */
+        private final Rectangle window;
+
+        /**
+         * The radius of our window around the starting point, or -1 if we are to find paths to
+         * every pixel (including if the window would cover the whole image anyway).
+         */
+        private final int windowRadius;
+
+        /**
+         * Our estimate of the rate (in vertices per nanosecond) at which `pathfinder` settles
+         * vertices, including the cost of reporting progress after each batch.  Initialized from
+         * our outer model's estimate and refined after every batch.  After construction, must only
+         * be accessed from the background thread until our search has finished.
+         */
+        private double settleRate;
+
+        /**
+         * The factor by which `graph` is downsampled relative to our outer model's image (1 unless
+         * tracing coarse-to-fine).
+         */
+        private final int scale;
+
+        /**
+         * The bounds of our outer model's image, in its own coordinates.
+         */
+        private final Rectangle imageBounds;
+
+        /**
+         * The bounding box (in `graph`'s coordinates) of the vertices settled since our last
+         * progress report, as its extreme coordinates; empty if `maxX < minX`.  Only accessed from
+         * the background thread.
+         */
+        private int minX;
+        private int minY;
+        private int maxX;
+        private int maxY;
+
+        /**
+         * Construct a worker that, when executed, will find the shortest paths from the vertex with
+         * ID `startId` in our outer model's graph to every pixel in that graph (or, in region of
+         * interest mode, to every pixel in a window around it; or, in coarse-to-fine mode, from
+         * the coarse pixel covering it to every pixel of the coarse graph).  "progress" events will
+         * be forwarded to our outer model's listeners.  This must be called from the EDT.
+         */
+        public ShortestPathsWorker(int startId) {
+            startNanos = System.nanoTime();
+            settleRate = ScissorsSelectionModel.this.settleRate;
+            imageGraph = ScissorsSelectionModel.this.graph;
+            weightName = ScissorsSelectionModel.this.weightName;
+            coarseToFine = usesPyramid();
+            pyramid = ScissorsSelectionModel.this.pyramid;
+            scale = coarseToFine ? pyramidFactor() : 1;
+            imageBounds = new Rectangle(0, 0, image().getWidth(), image().getHeight());
+            clearChangedBounds();
+            this.startId = startId;
+            // The coarse graph of a pyramid is always small enough to search whole.
+            Rectangle roi = imageGraph.windowAround(startId, ROI_INITIAL_RADIUS);
+            if (!coarseToFine && imageGraph.vertexCount() >= ROI_MIN_PIXELS
+                    && !imageGraph.coversImage(roi)) {
+                window = roi;
+                windowRadius = ROI_INITIAL_RADIUS;
+            } else {
+                window = null;
+                windowRadius = -1;
+            }
+        }
 
-                // Return the final pathfinding results
-                return pathfinder.extendSearch(0);
-            } catch (Exception e) {
-                // Handle any exceptions and return null
-                e.printStackTrace();
+        /**
+         * Forward progress changes to our outer model's listeners (as long as we are still the
+         * active worker).  This is executed on the EDT.
+         */
+        @Override
+        protected void progressChanged(int oldProgress, int newProgress) {
+            if (worker == this) {
+                propSupport.firePropertyChange("progress", oldProgress, newProgress);
+            }
+        }
+
+        /**
+         * Solve for shortest paths and return the results.  Periodically publish progress
+         * percentage and preliminary shortest paths.  It is assumed that this is generally not
+         * called from the EDT.  Returns null if cancelled.
+         */
+        @Override
+        public PathfindingSnapshot doInBackground() {
+            // This is executed on a separate thread; do not access outer model's fields!
+
+            // TODO A6.2c: Implement this method as specified.  In more detail, your implementation
+            //  should do the following:
+            //  1. Repeatedly extend the search on `pathfinder` until all paths have been found.
+            //     The batch size should be small enough so that the progress bar will update
+            //     smoothly (no more than 10000).
+            //  2. After each extension of the search, report the percentage of vertices that have
+            //     been settled as our progress.
+            //  3. Also after each extension, use `publish()` to deliver the current results
+            //     snapshot over to the EDT (where it will appear as an argument to `process()`).
+            //  4. Each iteration should check whether this SwingWorker has been cancelled.  If so,
+            //     return immediately.
+            //  5. After all paths have been found, return the final pathfinding results.
+            //  Since this may execute concurrently with other methods in the same class, it is only
+            //  safe to use a subset of its fields and methods, including: `pathfinder`,
+            //  `setProgress()`, `publish()`, and `isCancelled()`.
+            //  References:
+            //  [1] https://docs.oracle.com/javase/tutorial/uiswing/concurrency/worker.html
+            //  [2] https://docs.oracle.com/en/java/javase/21/docs/api/java.desktop/javax/swing/SwingWorker.html#isCancelled()
+
+            prepare();
+            weigher.ensureComputed();
+            if (isCancelled()) {
                 return null;
             }
+            // Acquired here rather than on the EDT, so that a job that never runs holds no solver.
+            pathfinder = solverPool.acquire();
+            pathfinder.setStart(startId);
+            PathfindingSnapshot result = null;
+            try {
+                result = search();
+                return result;
+            } finally {
+                // Nobody adopts missing results, and a declined task must not keep its solver.
+                if (result == null || !handoff.compareAndSet(IN_USE, FINISHED)) {
+                    solverPool.release(pathfinder);
+                }
+            }
+        }
+
+        /**
+         * Set `graph`, `solverPool`, and `weigher`, and convert `startId` to an ID in `graph`.  In
+         * coarse-to-fine mode, builds `pyramid` first if our outer model had not built it yet,
+         * which downsamples the image and prepares its full-resolution weigher in time
+         * proportional to its size (but only once per image, since both are cached by
+         * `imageGraph`), so that refining paths on the EDT later is cheap.  Called on the
+         * background thread.
+         */
+        private void prepare() {
+            if (coarseToFine) {
+                if (pyramid == null) {
+                    pyramid = new ImagePyramid(imageGraph, scale, weightName);
+                }
+                graph = pyramid.coarse();
+                startId = pyramid.toCoarse(startId);
+            } else {
+                graph = imageGraph;
+            }
+            solverPool = graph.solvers(weightName);
+            weigher = solverPool.weigher();
+        }
+
+        /**
+         * Extend the search of `pathfinder` as specified by `doInBackground()`, returning the
+         * final results or null if cancelled.  The solver is left without our cancellation token
+         * or settle observer, so that resuming it on the EDT is neither stopped when we are
+         * superseded nor reported to us.  Called on the background thread.
+         */
+        private PathfindingSnapshot search() {
+            // Lets a cancelled or superseded search stop in the middle of a batch.
+            pathfinder.setCancellationToken(token());
+            pathfinder.setSettleObserver(this::noteSettled);
+            try {
+                return extendSearch();
+            } finally {
+                pathfinder.setCancellationToken(null);
+                pathfinder.setSettleObserver(null);
+            }
+        }
+
+        /**
+         * Extend the search of `pathfinder` until it settles our window (or every vertex),
+         * publishing progress along the way.  Returns the final results or null if cancelled.
+         */
+        private PathfindingSnapshot extendSearch() {
+            if (window != null) {
+                PathfindingSnapshot snapshot = pathfinder.extendSearchToCover(
+                        graph.idsIn(window).iterator());
+                if (isCancelled()) {
+                    return null;
+                }
+                publish(progressReport(snapshot, pathfinder.progress()));
+                return snapshot;
+            }
+
+            // Initialize variables
+            int totalVertices = pathfinder.vertexCount();
+            int settledCount = pathfinder.progress().settledCount();
+
+            // Repeat until all paths have been found
+            while (!pathfinder.allPathsFound()) {
+                // Check if the worker has been cancelled
+                if (isCancelled()) {
+                    return null;
+                }
+
+                // Extend the search by as many vertices as we expect to settle in one interval
+                long batchStart = System.nanoTime();
+                PathfindingSnapshot snapshot = pathfinder.extendSearch(batchSize(totalVertices));
+
+                // The solver counts settled vertices as it goes, so this is O(1)
+                SearchProgress searchProgress = pathfinder.progress();
+
+                // Calculate progress percentage
+                int progress = (int) (100L * searchProgress.settledCount() / totalVertices);
+
+                // Update progress
+                setProgress(progress);
+
+                // Publish a report of our progress, which views (rather than copies) our results
+                publish(progressReport(snapshot, searchProgress));
+
+                measureBatch(searchProgress.settledCount() - settledCount,
+                        System.nanoTime() - batchStart);
+                settledCount = searchProgress.settledCount();
+            }
+
+            // Return the final pathfinding results.  Any exception propagates to `done()`.
+            return pathfinder.extendSearch(0);
+        }
+
+        /**
+         * Return the number of vertices to settle in the next batch of our search so that it takes
+         * about `PROGRESS_INTERVAL_NANOS` at our estimated settle rate, but no fewer than
+         * `MIN_BATCH_SIZE` and no more than `totalVertices` (so that a small graph is searched in
+         * a single batch).
+         */
+        private int batchSize(int totalVertices) {
+            double size = settleRate * PROGRESS_INTERVAL_NANOS;
+            return (int) Math.min(totalVertices, Math.max(MIN_BATCH_SIZE, size));
+        }
+
+        /**
+         * Refine our estimated settle rate given that the last batch settled `settled` vertices
+         * in `elapsedNanos` (including reporting its progress).  Batches that settle too few
+         * vertices to time reliably (such as the last batch of a search) are ignored.  The new
+         * measurement is averaged with the previous estimate to damp noise such as pauses for
+         * garbage collection.
+         */
+        private void measureBatch(int settled, long elapsedNanos) {
+            if (settled >= MIN_BATCH_SIZE && elapsedNanos > 0) {
+                settleRate = (settleRate + (double) settled / elapsedNanos) / 2;
+            }
+        }
+
+        /**
+         * Record that the vertex with ID `id` has been settled, growing our changed bounds to
+         * include it.  Called by our solver on the background thread.
+         */
+        private void noteSettled(int id) {
+            int y = id / graph.width();
+            int x = id - y * graph.width();
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        private void clearChangedBounds() {
+            minX = Integer.MAX_VALUE;
+            minY = Integer.MAX_VALUE;
+            maxX = Integer.MIN_VALUE;
+            maxY = Integer.MIN_VALUE;
+        }
+
+        /**
+         * Return a report of our search's progress, as summarized by `searchProgress`, whose
+         * statuses view `snapshot`.  Its changed bounds cover the vertices settled since our last
+         * report, grown by one pixel to include the neighbors they discovered, in image
+         * coordinates.  Clears those bounds.  Called on the background thread.
+         */
+        private PathfindingProgress progressReport(PathfindingSnapshot snapshot,
+                SearchProgress searchProgress) {
+            Rectangle changed = new Rectangle();
+            if (maxX >= minX) {
+                changed.setBounds((minX - 1) * scale, (minY - 1) * scale,
+                        (maxX - minX + 3) * scale, (maxY - minY + 3) * scale);
+                changed = changed.intersection(imageBounds);
+            }
+            clearChangedBounds();
+            return new PathfindingProgress(searchProgress.settledCount(),
+                    searchProgress.frontierSize(), changed, statuses(snapshot));
         }
 
+        /**
+         * Return a view of the statuses of our outer model's pixels according to `snapshot`.
+         */
+        private ImagePathsSnapshot statuses(PathfindingSnapshot snapshot) {
+            return new ImagePathsSnapshot(graph, snapshot, scale);
+        }
 
         /**
-         * Save the most recent preliminary paths published by the worker's background task to our
-         * outer Model's `pendingPaths` and notify listeners that the "pending-paths" property has
-         * changed. This is executed on the EDT.
+         * Merge progress reports that were published before the EDT could process them, so that
+         * the pixels changed by every batch are reported.
          */
         @Override
-        public void process(List<PathfindingSnapshot> publishedPaths) {
+        protected PathfindingProgress coalesce(PathfindingProgress older,
+                PathfindingProgress newer) {
+            return older.followedBy(newer);
+        }
+
+        /**
+         * Save the most recent progress report published by the worker's background task to our
+         * outer Model's `pendingProgress` (and the paths it views to `pendingPaths`) and notify
+         * listeners that the "pending-paths" property has changed, with the report as its new
+         * value.  Also adopts any pyramid our background task has built.  This is executed on the
+         * EDT.
+         */
+        @Override
+        public void process(PathfindingProgress latest) {
             // If our outer component has changed its image and state since we started, do nothing.
             if (worker != this) {
                 return;
             }
-            pendingPaths = publishedPaths.getLast();
-            firePropertyChange("pending-paths", null, pendingPaths);
+            // Our task built any pyramid before publishing, so it can be read here.
+            ScissorsSelectionModel.this.pyramid = pyramid;
+            pendingProgress = latest;
+            pendingPaths = latest.statuses().paths();
+            propSupport.firePropertyChange("pending-paths", null, pendingProgress);
         }
 
         /**
-         * This is executed on the EDT.  If we are still the active worker, set model's state to the
-         * state it transitioned to PROCESSING from, unless it was NO_SELECTION and our task
-         * finished successfully, in which case transition to SELECTING.
+         * This is executed on the EDT.  If we are still the active worker, adopt the paths computed
+         * by our background task as our outer model's `paths` and set model's state to the state it
+         * transitioned to PROCESSING from, unless it was NO_SELECTION and our task finished
+         * successfully, in which case transition to SELECTING.  If we were cancelled, the point we
+         * were searching from is undone instead.  Takes O(1) time apart from listeners.
          */
         @Override
         public void done() {
@@ -445,30 +1284,611 @@ public class ScissorsSelectionModel extends SelectionModel {
             //  Since this is guaranteed to execute on the EDT, it is safe to access any members of
             //  our outer model object.
 
-            if (ScissorsSelectionModel.this.worker != this) {
+            if (worker != this) {
+                declineResults();
                 return;
             }
+            worker = null;
+
+            // The background thread has already finished (or abandoned) the search, so only its
+            //  result is handed over here; nothing is recomputed on the EDT.
+            PathfindingSnapshot snapshot;
             try {
-                PathfindingSnapshot snapshot = doInBackground();
-                if (snapshot != null) {
-                    if (ScissorsSelectionModel.this.previousState == NO_SELECTION) {
-                        ScissorsSelectionModel.this.setState(SELECTING);
-                    }
-                    ScissorsSelectionModel.this.paths = snapshot;
-                    if (ScissorsSelectionModel.this.previousState != NO_SELECTION) {
-                        ScissorsSelectionModel.this.setState(previousState);
-                    }
-                    ScissorsSelectionModel.this.worker = null;
+                snapshot = get();
+            } catch (CancellationException e) {
+                snapshot = null;
+            } catch (InterruptedException e) {
+                // `get()` does not block in `done()`, so this cannot happen
+                Thread.currentThread().interrupt();
+                snapshot = null;
+            } catch (ExecutionException e) {
+                declineResults();
+                setState(previousState);
+                throw new RuntimeException(e.getCause());
+            }
+
+            if (snapshot != null) {
+                ScissorsSelectionModel.this.pyramid = pyramid;
+                setPaths(snapshot, pathfinder, windowRadius);
+                // Our search has finished, so its rate estimate can be read here.
+                ScissorsSelectionModel.this.settleRate = settleRate;
+                setState((previousState == NO_SELECTION) ? SELECTING : previousState);
+                lastSearchNanos = System.nanoTime() - startNanos;
+                propSupport.firePropertyChange("search-millis", null, lastSearchMillis());
+                return;
+            }
+            declineResults();
+            if (previousState == SELECTING && !selection.isEmpty()) {
+                // Undo the point whose search was cancelled.  Our `paths` are still those from the
+                //  previous endpoint, so there is no need to search again.
+                selection.removeLast();
+                setState(SELECTING);
+                propSupport.firePropertyChange("selection", null, selection());
+            } else if (previousState == NO_SELECTION) {
+                reset();
+            } else {
+                setState(previousState);
+            }
+        }
+
+        /**
+         * Give up our outer model's claim on our results, returning `pathfinder` to its pool if
+         * our background task has already finished with it (otherwise the task releases it when
+         * it does).  Called on the EDT.
+         */
+        private void declineResults() {
+            if (!handoff.compareAndSet(IN_USE, DECLINED)) {
+                solverPool.release(pathfinder);
+            }
+        }
+    }
+
+    /**
+     * Job for growing the window of our committed region of interest search in the background (see
+     * `growWindow()`).  Resumes `pathsSolver` while holding its lock: first until it settles the
+     * pixel that the live wire asked for, whose snapshot is published so that the live wire can
+     * follow it, and then until it settles the whole window.  Returns the final snapshot (or null
+     * if cancelled).  Never changes our outer model's state.
+     */
+    private class GrowWindowWorker
+            extends PathfindingExecutor.Job<PathfindingSnapshot, PathfindingSnapshot> {
+
+        /**
+         * Our outer model's committed solver when this worker was created, which it keeps owning.
+         */
+        private final ShortestPathsSolver solver;
+
+        /**
+         * Our outer model's graph when this worker was created.
+         */
+        private final ImageGraph graph;
+
+        /**
+         * The vertex ID of the pixel that the live wire asked for.
+         */
+        private final int targetId;
+
+        /**
+         * The window of pixels to settle.
+         */
+        private final Rectangle window;
+
+        /**
+         * The radius of `window` around the starting point of our search.
+         */
+        private final int radius;
+
+        /**
+         * Construct a worker that, when executed, will resume the search of our outer model's
+         * `pathsSolver` until it settles the pixel with ID `targetId` and then every pixel in the
+         * window of radius `radius` around its starting point.  This must be called from the EDT.
+         */
+        GrowWindowWorker(int targetId, int radius) {
+            solver = pathsSolver;
+            graph = ScissorsSelectionModel.this.graph;
+            this.targetId = targetId;
+            window = graph.windowAround(paths.start(), radius);
+            this.radius = radius;
+        }
+
+        @Override
+        public PathfindingSnapshot doInBackground() {
+            // This is executed on a separate thread; do not access outer model's fields!
+            synchronized (solver) {
+                // Our outer model may have released the solver since we were cancelled.
+                if (isCancelled()) {
+                    return null;
+                }
+                solver.setCancellationToken(token());
+                try {
+                    publish(solver.extendSearchUntil(targetId));
+                    PathfindingSnapshot snapshot =
+                            solver.extendSearchToCover(graph.idsIn(window).iterator());
+                    return isCancelled() ? null : snapshot;
+                } finally {
+                    solver.setCancellationToken(null);
+                }
+            }
+        }
+
+        /**
+         * This is executed on the EDT.  If we are still growing our outer model's window, serve
+         * live-wire paths from `latest` and, if it has settled our target, notify listeners that
+         * the "live-wire" property has changed.
+         */
+        @Override
+        protected void process(PathfindingSnapshot latest) {
+            if (growWorker != this) {
+                return;
+            }
+            grownPaths = latest;
+            if (latest.settled(targetId)) {
+                PolyLine path = graph.pathToPolyLine(latest, targetId, pathBuffer);
+                liveWireCache.put(targetId, path);
+                propSupport.firePropertyChange("live-wire", null, path);
+            }
+        }
+
+        /**
+         * This is executed on the EDT.  If we are still growing our outer model's window, adopt our
+         * final snapshot as its `paths`, with our larger window (or none, if ours covers the
+         * image).  Takes O(1) time apart from listeners.
+         */
+        @Override
+        public void done() {
+            if (growWorker != this) {
+                return;
+            }
+            growWorker = null;
+            PathfindingSnapshot snapshot;
+            try {
+                snapshot = get();
+            } catch (CancellationException e) {
+                return;
+            } catch (InterruptedException e) {
+                // `get()` does not block in `done()`, so this cannot happen
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            if (snapshot != null) {
+                setPaths(snapshot, solver, graph.coversImage(window) ? -1 : radius);
+            }
+        }
+    }
+
+    /**
+     * Job for settling a clicked pixel outside of the window of our committed region of interest
+     * search before committing the segment to it (see `settleThenCommit()`).  Resumes
+     * `pathsSolver` while holding its lock, only until that pixel is settled.  Returns the
+     * resulting snapshot (or null if cancelled).
+     */
+    private class SettlePixelWorker extends PathfindingExecutor.Job<PathfindingSnapshot, Void> {
+
+        /**
+         * Our outer model's committed solver when this worker was created, which it keeps owning.
+         */
+        private final ShortestPathsSolver solver;
+
+        /**
+         * The vertex ID that the search of `solver` starts from.
+         */
+        private final int startId;
+
+        /**
+         * The vertex ID of the clicked pixel.
+         */
+        private final int targetId;
+
+        /**
+         * The radius of the window that our outer model's `paths` had settled when this worker was
+         * created.
+         */
+        private final int windowRadius;
+
+        /**
+         * Whether the clicked pixel closes our outer model's selection (see `finishSelection()`)
+         * rather than adding a new point.
+         */
+        private final boolean finishing;
+
+        /**
+         * Construct a worker that, when executed, will resume the search of our outer model's
+         * `pathsSolver` until it settles the pixel with ID `targetId`.  This must be called from
+         * the EDT.
+         */
+        SettlePixelWorker(int targetId, boolean finishing) {
+            solver = pathsSolver;
+            startId = paths.start();
+            this.targetId = targetId;
+            windowRadius = pathsWindowRadius;
+            this.finishing = finishing;
+        }
+
+        @Override
+        public PathfindingSnapshot doInBackground() {
+            // This is executed on a separate thread; do not access outer model's fields!
+            synchronized (solver) {
+                // Our outer model may have released the solver since we were cancelled.
+                if (isCancelled()) {
+                    return null;
+                }
+                solver.setCancellationToken(token());
+                try {
+                    PathfindingSnapshot snapshot = solver.findPathTo(startId, targetId);
+                    return isCancelled() ? null : snapshot;
+                } finally {
+                    solver.setCancellationToken(null);
+                }
+            }
+        }
+
+        /**
+         * This is executed on the EDT.  If we are still the active worker, adopt our snapshot as
+         * our outer model's `paths` (with its window unchanged) and commit the segment to the
+         * clicked pixel, which searches from it in turn unless we are `finishing`.  If we were
+         * cancelled, our outer model returns to the state it was in before PROCESSING, without the
+         * clicked point.
+         */
+        @Override
+        public void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            PathfindingSnapshot snapshot;
+            try {
+                snapshot = get();
+            } catch (CancellationException e) {
+                snapshot = null;
+            } catch (InterruptedException e) {
+                // `get()` does not block in `done()`, so this cannot happen
+                Thread.currentThread().interrupt();
+                snapshot = null;
+            } catch (ExecutionException e) {
+                setState(previousState);
+                throw new RuntimeException(e.getCause());
+            }
+            setState(previousState);
+            if (snapshot == null) {
+                return;
+            }
+            setPaths(snapshot, solver, windowRadius);
+            selection.addLast(committedPath(targetId));
+            if (finishing) {
+                setState(SELECTED);
+            } else {
+                findPaths(targetId);
+            }
+            propSupport.firePropertyChange("selection", null, selection());
+        }
+    }
+
+    /**
+     * Job for refining a live-wire path at full resolution in coarse-to-fine mode (see
+     * `refineInBackground()`).  Returns the refined path (or null if cancelled).
+     */
+    private class RefineWorker extends PathfindingExecutor.Job<PolyLine, Void> {
+
+        /**
+         * Our outer model's pyramid when this worker was created.
+         */
+        private final ImagePyramid pyramid;
+
+        /**
+         * The coarse path to refine, as returned by `ImagePyramid.coarsePathTo()`.
+         */
+        private final int[] coarsePath;
+
+        /**
+         * Identifies the search that `coarsePath` was found by (see `refineInBackground()`).
+         */
+        private final Object source;
+
+        /**
+         * The vertex ID of our outer model's last point when this worker was created.
+         */
+        private final int fineStartId;
+
+        /**
+         * The vertex ID of the pixel that the path to refine ends at.
+         */
+        private final int fineDstId;
+
+        /**
+         * Construct a worker that, when executed, will refine `coarsePath`, found by the search
+         * identified by `source`, into a path from our outer model's last point to the pixel with
+         * ID `fineDstId`.  This must be called from the EDT.
+         */
+        RefineWorker(int[] coarsePath, Object source, int fineDstId) {
+            pyramid = ScissorsSelectionModel.this.pyramid;
+            this.coarsePath = coarsePath;
+            this.source = source;
+            fineStartId = graph.idAt(lastPoint());
+            this.fineDstId = fineDstId;
+        }
+
+        @Override
+        public PolyLine doInBackground() {
+            // This is executed on a separate thread; do not access outer model's fields!
+            return pyramid.refinePath(coarsePath, fineStartId, fineDstId, token());
+        }
+
+        /**
+         * This is executed on the EDT.  If we are still the most recent refinement and the search
+         * that our path was found by is still current, remember our path for that search, make it
+         * the stale path served during later refinements, and notify listeners that the
+         * "live-wire" property has changed.
+         */
+        @Override
+        public void done() {
+            if (refineWorker != this) {
+                return;
+            }
+            refineWorker = null;
+            PolyLine path;
+            try {
+                path = get();
+            } catch (CancellationException e) {
+                return;
+            } catch (InterruptedException e) {
+                // `get()` does not block in `done()`, so this cannot happen
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            if (path == null) {
+                return;
+            }
+            if (source == paths) {
+                liveWireCache.put(fineDstId, path);
+            } else if (source == worker) {
+                pendingWire = path;
+                pendingWireId = fineDstId;
+            } else {
+                return;
+            }
+            refinedWire = path;
+            propSupport.firePropertyChange("live-wire", null, path);
+        }
+    }
+
+    /**
+     * Job for re-routing the two selection segments adjacent to a moved control point.
+     * Each segment that was not already found in a precomputed tree is found with a bidirectional
+     * search between its endpoints, using a solver borrowed from the pool of the graph searched.
+     * In coarse-to-fine mode, that search runs in the pyramid's coarse graph and its path is
+     * refined at full resolution, since a bidirectional solver for the full image would need
+     * several arrays with an entry per pixel.  For images that are not traced coarse-to-fine but
+     * are still too large for such arrays (those whose pool creates COMPACT solvers), each segment
+     * is found by a compact one-directional search instead.  Returns the new segments (or null if
+     * cancelled).
+     */
+    private class MovePointWorker extends PathfindingExecutor.Job<List<PolyLine>, Void> {
+
+        /**
+         * The graph our outer model was tracing when this worker was created.
+         */
+        private final ImageGraph graph;
+
+        /**
+         * The name of the weight function our outer model was using when this worker was created.
+         */
+        private final String weightName;
+
+        /**
+         * Whether to search for segments coarse-to-fine, because `graph` is large enough to be
+         * traced with a pyramid.
+         */
+        private final boolean coarseToFine;
+
+        /**
+         * The downsampling factor for a pyramid that this worker builds, or 0 if not
+         * `coarseToFine`.
+         */
+        private final int scale;
+
+        /**
+         * The pyramid to search with in coarse-to-fine mode: our outer model's when this worker was
+         * created, or one built by our background task if that was null.  Null if not
+         * `coarseToFine`.  After construction, must only be accessed from the background thread
+         * until our results have been computed.
+         */
+        private ImagePyramid pyramid;
+
+        /**
+         * The index of the segment whose starting point is being moved.
+         */
+        private final int index;
+
+        /**
+         * The new location of the moved point.
+         */
+        private final Point newPos;
+
+        /**
+         * The vertex ID of the control point before the moved point.
+         */
+        private final int predecessorId;
+
+        /**
+         * The vertex ID of the moved point's new location.
+         */
+        private final int movedId;
+
+        /**
+         * The vertex ID of the control point after the moved point.
+         */
+        private final int successorId;
+
+        /**
+         * The new segment before the moved point, if it is already known; otherwise null.
+         */
+        private final PolyLine knownBefore;
+
+        /**
+         * The new segment after the moved point, if it is already known; otherwise null.
+         */
+        private final PolyLine knownAfter;
+
+        /**
+         * Construct a worker that, when executed, will find new paths for the segments that join
+         * the control point at vertex ID `predecessorId` to `newPos` and `newPos` to the control
+         * point at vertex ID `successorId`, then replace the segments adjacent to the control
+         * point with index `index` with them.  `knownBefore` and `knownAfter`, if not null, are
+         * used for those segments instead of searching.  This must be called from the EDT.
+         */
+        MovePointWorker(int index, Point newPos, int predecessorId, int successorId,
+                PolyLine knownBefore, PolyLine knownAfter) {
+            graph = ScissorsSelectionModel.this.graph;
+            weightName = ScissorsSelectionModel.this.weightName;
+            coarseToFine = usesPyramid();
+            scale = coarseToFine ? pyramidFactor() : 0;
+            pyramid = ScissorsSelectionModel.this.pyramid;
+            this.index = index;
+            this.newPos = new Point(newPos);
+            this.predecessorId = predecessorId;
+            this.movedId = graph.idAt(newPos);
+            this.successorId = successorId;
+            this.knownBefore = knownBefore;
+            this.knownAfter = knownAfter;
+        }
+
+        /**
+         * Find the paths for the segments before and after the moved point, returning them in
+         * that order.  Returns null if cancelled.  In coarse-to-fine mode, builds `pyramid` first
+         * if our outer model had not built it yet.
+         */
+        @Override
+        public List<PolyLine> doInBackground() {
+            // This is executed on a separate thread; do not access outer model's fields!
+            if (coarseToFine && pyramid == null) {
+                pyramid = new ImagePyramid(graph, scale, weightName);
+            }
+            ShortestPathsPool solvers = (coarseToFine ? pyramid.coarse() : graph)
+                    .solvers(weightName);
+            solvers.weigher().ensureComputed();
+            // The coarse graph of a pyramid is always small enough for a bidirectional solver.
+            if (!coarseToFine && solvers.kind() == ShortestPathsPool.SolverKind.COMPACT) {
+                return findCompactSegments(solvers);
+            }
+            BidirectionalShortestPaths<ImageVertex, ImageEdge> pathfinder =
+                    solvers.acquireBidirectional();
+            pathfinder.setCancellationToken(token());
+            try {
+                PolyLine before = (knownBefore != null) ? knownBefore
+                        : findSegment(pathfinder, predecessorId, movedId);
+                if (before == null || isCancelled()) {
+                    return null;
                 }
+                PolyLine after = (knownAfter != null) ? knownAfter
+                        : findSegment(pathfinder, movedId, successorId);
+                return (after == null) ? null : List.of(before, after);
+            } finally {
+                pathfinder.setCancellationToken(null);
+                solvers.release(pathfinder);
+            }
+        }
 
-                if (snapshot == null && ScissorsSelectionModel.this.state() == SELECTING) {
-                    undoPoint();
+        /**
+         * Find the paths for the segments before and after the moved point as `doInBackground()`
+         * does, but with a solver from `solvers`, a pool of COMPACT solvers for `graph`.  A
+         * bidirectional solver would keep dozens of bytes per pixel for images that large, so each
+         * segment is instead found by a one-directional search from its start that stops once its
+         * end has been settled.  Returns null if cancelled.
+         */
+        private List<PolyLine> findCompactSegments(ShortestPathsPool solvers) {
+            ShortestPathsSolver pathfinder = solvers.acquire();
+            pathfinder.setCancellationToken(token());
+            try {
+                PolyLineBuffer buffer = new PolyLineBuffer();
+                PolyLine before = (knownBefore != null) ? knownBefore
+                        : findCompactSegment(pathfinder, predecessorId, movedId, buffer);
+                if (before == null) {
+                    return null;
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("The model cannot be done");
+                PolyLine after = (knownAfter != null) ? knownAfter
+                        : findCompactSegment(pathfinder, movedId, successorId, buffer);
+                return (after == null) ? null : List.of(before, after);
+            } finally {
+                pathfinder.setCancellationToken(null);
+                solvers.release(pathfinder);
             }
+        }
 
+        /**
+         * Return a path from the pixel with ID `srcId` to the pixel with ID `dstId` in `graph`
+         * found by `pathfinder`, using `buffer` to build it.  Continues `pathfinder`'s search if
+         * it already starts at `srcId`.  Returns null if cancelled.
+         */
+        private PolyLine findCompactSegment(ShortestPathsSolver pathfinder, int srcId, int dstId,
+                PolyLineBuffer buffer) {
+            PathfindingSnapshot snapshot = pathfinder.findPathTo(srcId, dstId);
+            PolyLine path = isCancelled() ? null : graph.pathToPolyLine(snapshot, dstId, buffer);
+            // The path has been copied out, so the solver's arrays can be reused by the next
+            //  search instead of being reallocated.
+            pathfinder.discardSnapshots();
+            return path;
+        }
+
+        /**
+         * Return a path from the pixel with ID `srcId` to the pixel with ID `dstId` found by
+         * `pathfinder`, which must search the pyramid's coarse graph in coarse-to-fine mode and
+         * `graph` otherwise, and stop once we are cancelled.  Returns null if cancelled.
+         */
+        private PolyLine findSegment(BidirectionalShortestPaths<ImageVertex, ImageEdge> pathfinder,
+                int srcId, int dstId) {
+            if (!coarseToFine) {
+                List<Integer> path = pathfinder.findPath(srcId, dstId);
+                // Every pixel is reachable, so no path means that we were cancelled.
+                return (path == null) ? null : graph.pathToPolyLine(path);
+            }
+            List<Integer> coarse = pathfinder.findPath(pyramid.toCoarse(srcId),
+                    pyramid.toCoarse(dstId));
+            if (coarse == null) {
+                return null;
+            }
+            // Refinement expects the coarse path ordered from its destination back to its start.
+            int[] coarsePath = new int[coarse.size()];
+            for (int i = 0; i < coarsePath.length; ++i) {
+                coarsePath[i] = coarse.get(coarsePath.length - 1 - i);
+            }
+            return pyramid.refinePath(coarsePath, srcId, dstId, token());
+        }
 
+        /**
+         * This is executed on the EDT.  If we are still the active worker, replace the segments
+         * adjacent to the moved point with the new paths (unless cancelled), then return our
+         * outer model to the state it was in before PROCESSING.
+         */
+        @Override
+        public void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            try {
+                List<PolyLine> segments = get();
+                if (segments != null) {
+                    // Our task built any pyramid before returning, so it can be read here.
+                    if (coarseToFine) {
+                        ScissorsSelectionModel.this.pyramid = pyramid;
+                    }
+                    replaceAdjacentSegments(index, newPos, segments.get(0), segments.get(1));
+                }
+            } catch (CancellationException e) {
+                // Leave the selection unchanged
+            } catch (InterruptedException e) {
+                // `get()` does not block in `done()`, so this cannot happen
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                setState(previousState);
+                throw new RuntimeException(e.getCause());
+            }
+            setState(previousState);
+            propSupport.firePropertyChange("selection", null, selection());
         }
     }
 }
@@ -1,10 +1,8 @@
 package scissors;
 
+import graph.IntWeigher;
 import graph.Weigher;
-import java.awt.image.BandCombineOp;
 import java.awt.image.Raster;
-import java.awt.image.RasterOp;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -35,6 +33,16 @@ public class ScissorsWeights {
         return List.of("CrossGradMono", "ColorBand");
     }
 
+    /**
+     * Return the largest value that `crossGrad()` is treated as reaching for an edge in direction
+     * `dir`, multiplied by the edge's length: the value from which weighers subtract an edge's
+     * cross gradient to turn it into a cost.  Even directions are horizontal or vertical; odd
+     * directions are diagonal (and longer).
+     */
+    static int eGradMax(int dir) {
+        return ((dir % 2) == 0) ? 180 : 255;
+    }
+
     /**
      * Return the magnitude of the slope of the image intensity of `img` in band `b` perpendicular
      * to the direction `dir` from the pixel at location (`x`, `y`), multiplied by the distance to
@@ -76,8 +84,10 @@ public class ScissorsWeights {
     /**
      * Weight edges less if they run perpendicular to a large brightness gradient in an ImageGraph's
      * image.  Only considers the brightness of a grayscale (band-averaged) version of the image.
+     * Also weighs edges by their start and direction, so that searches need not create an
+     * ImageEdge per edge they relax.
      */
-    static class CrossGradMonoWeight implements Weigher<ImageEdge> {
+    static class CrossGradMonoWeight implements Weigher<ImageEdge>, IntWeigher {
 
         /**
          * The graph that the edges to be weighed will come from.
@@ -85,7 +95,8 @@ public class ScissorsWeights {
         private ImageGraph graph;
 
         /**
-         * A grayscale copy of the image represented by `graph`.
+         * A single-band grayscale copy of the image represented by `graph` (shared with the graph,
+         * which computes it once per image).
          */
         private Raster grayImage;
 
@@ -95,39 +106,39 @@ public class ScissorsWeights {
         CrossGradMonoWeight(ImageGraph graph) {
             this.graph = graph;
 
-            // Extract the "raster" for our graph's image, from which we can query pixel
-            //  brightnesses.
-            Raster src = graph.raster();
-
-            // Convert our graph's image to black-and-white by averaging its bands
-            // This involves linear algebra; we do not expect most students to understand how this
-            //  works yet (consider CS 4670 if you are interested).
-            float weight = 1.0f / src.getNumBands();
-            float[][] avgMatrix = new float[3][src.getNumBands()];
-            Arrays.fill(avgMatrix[0], weight);
-            Arrays.fill(avgMatrix, avgMatrix[0]);
-            RasterOp op = new BandCombineOp(avgMatrix, null);
-            grayImage = op.filter(src, null);
+            // Query brightnesses from a black-and-white version of our graph's image.
+            grayImage = graph.grayRaster();
         }
 
 
 
         @Override
         public int weight(ImageEdge edge) {
+            return weight(edge.startId(), edge.dir());
+        }
+
+        @Override
+        public int weight(int startId, int dir) {
             // Get location of pixel at edge's start
-            ImageVertex src = graph.getVertex(edge.startId());
-            int x = src.x();
-            int y = src.y();
+            int width = graph.width();
+            int y = startId / width;
+            int x = startId - y * width;
 
             // Compute the largest possible slope, multiplied by the edge's length, that could be
             //  observed perpendicular to this edge's direction (even directions are horizontal or
             //  vertical; odd edges are diagonal).  By subtracting a "reward" quantity from this,
             //  we convert the reward into a "cost".
-            int eGradMax = ((edge.dir() % 2) == 0) ? 180 : 255;
+            int eGradMax = eGradMax(dir);
 
             // Compute the magnitude of the slope perpendicular to this edge, multiplied by this
             //  edge's length, then subtract it from the best possible value.
-            return eGradMax - crossGrad(grayImage, x, y, 0, edge.dir());
+            return eGradMax - crossGrad(grayImage, x, y, 0, dir);
+        }
+
+        @Override
+        public int maxWeight() {
+            // `crossGrad()` is non-negative, so no edge can cost more than a diagonal's maximum.
+            return 255;
         }
     }
 
@@ -142,7 +153,12 @@ public class ScissorsWeights {
     //  3. Must work better than "CrossGradMono" on images with different colors of similar
     //     brightness (like challenge_1.png).
 
-    static class ColorBandWeight implements Weigher<ImageEdge> {
+    /**
+     * Weight edges less if they run perpendicular to large gradients in any band of an
+     * ImageGraph's image, so that colors of similar brightness can still be told apart.  Also
+     * weighs edges by their start and direction, like `CrossGradMonoWeight`.
+     */
+    static class ColorBandWeight implements Weigher<ImageEdge>, IntWeigher {
 
         /**
          * The graph that the edges to be weighed will come from.
@@ -168,25 +184,36 @@ public class ScissorsWeights {
 
         @Override
         public int weight(ImageEdge edge) {
+            return weight(edge.startId(), edge.dir());
+        }
+
+        @Override
+        public int weight(int startId, int dir) {
             // Get location of pixel at edge's start
-            ImageVertex src = graph.getVertex(edge.startId());
-            int x = src.x();
-            int y = src.y();
+            int width = graph.width();
+            int y = startId / width;
+            int x = startId - y * width;
 
             // Compute the largest possible slope, multiplied by the edge's length, that could be
             //  observed perpendicular to this edge's direction (even directions are horizontal or
             //  vertical; odd edges are diagonal).  By subtracting a "reward" quantity from this,
             //  we convert the reward into a "cost".
-            int eGradMax = ((edge.dir() % 2) == 0) ? 180 : 255;
+            int eGradMax = eGradMax(dir);
             int totalWeight = 0;
 
             for(int band = 0; band < image.getNumBands(); band++){
-                totalWeight+= eGradMax - crossGrad(image, x, y, band, edge.dir());
+                totalWeight+= eGradMax - crossGrad(image, x, y, band, dir);
             }
 
             // Compute the magnitude of the slope perpendicular to this edge, multiplied by this
             //  edge's length, then subtract it from the best possible value.
             return totalWeight;
         }
+
+        @Override
+        public int maxWeight() {
+            // Each band contributes at most the maximum weight of a diagonal edge.
+            return 255 * image.getNumBands();
+        }
     }
 }
@@ -0,0 +1,232 @@
+package scissors;
+
+import graph.BidirectionalShortestPaths;
+import graph.CompactShortestPaths;
+import graph.DeltaSteppingShortestPaths;
+import graph.ShortestPaths;
+import graph.ShortestPathsSolver;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A pool of idle solvers for one ImageGraph and weigher, obtained from `ImageGraph.solvers()`.
+ * Each solver holds several arrays with an entry per pixel, so reusing solvers across searches
+ * (whose starting points can be changed in O(1) time) avoids allocating and clearing that storage
+ * on every click.
+ * <p>
+ * A pool for a large image may create `DeltaSteppingShortestPaths` solvers, which settle pixels
+ * on several threads, and a pool for a very large image may create `CompactShortestPaths` solvers,
+ * which keep two bytes per pixel rather than the 16 of `ShortestPaths`, at the cost of knowing no
+ * distances: their snapshots return -1 from `distanceTo()` for every pixel but the start, and
+ * only know paths to settled pixels.  Clients of such a pool must only use paths.
+ * <p>
+ * A pool also keeps idle `BidirectionalShortestPaths` solvers for searches between two known
+ * pixels, whose epoch-stamped storage likewise needs no clearing between queries.
+ * <p>
+ * A solver must only be released once no snapshot it has produced will be queried again.  Safe to
+ * use from multiple threads.
+ */
+class ShortestPathsPool {
+
+    /**
+     * The kinds of solver that a pool can create.
+     */
+    enum SolverKind {
+        /**
+         * `ShortestPaths` solvers, which settle one vertex at a time on the calling thread.
+         */
+        SEQUENTIAL,
+
+        /**
+         * `DeltaSteppingShortestPaths` solvers, which relax edges on several threads.
+         */
+        PARALLEL,
+
+        /**
+         * `CompactShortestPaths` solvers, which keep two bytes per vertex.
+         */
+        COMPACT
+    }
+
+    /**
+     * Graphs with at least this many vertices are searched with `DeltaSteppingShortestPaths`
+     * solvers by the pools that `ImageGraph.solvers()` creates, when the common fork-join pool
+     * (whose threads those solvers relax edges on) has more than one thread.  Smaller searches
+     * finish quickly enough that coordinating threads would not pay off.
+     */
+    static final int PARALLEL_MIN_PIXELS = 1 << 22;
+
+    /**
+     * Graphs with at least this many vertices are searched with `CompactShortestPaths` solvers by
+     * the pools that `ImageGraph.solvers()` creates.  Those keep two bytes per pixel instead of the
+     * dozens kept by `ShortestPaths` (counting its frontier queue), and know no distances, which
+     * selection models never need.
+     */
+    static final int COMPACT_MIN_PIXELS = 1 << 24;
+
+    /**
+     * The maximum number of idle solvers to retain.  A selection model needs at most one solver
+     * for its committed paths and one for an in-progress search, and a pool is usually only used
+     * by one model at a time.
+     */
+    private static final int MAX_IDLE = 2;
+
+    /**
+     * The maximum number of idle solvers to retain in a pool of PARALLEL solvers.  Those keep
+     * about twice as much storage per pixel as `ShortestPaths`, for graphs of millions of pixels,
+     * so only the solver most likely to be reused next is kept.
+     */
+    private static final int MAX_IDLE_PARALLEL = 1;
+
+    /**
+     * The maximum number of idle bidirectional solvers to retain.  A selection model runs at most
+     * one search between two known pixels at a time.
+     */
+    private static final int MAX_IDLE_BIDIRECTIONAL = 1;
+
+    /**
+     * Idle bidirectional solvers are only retained for graphs with fewer than this many vertices.
+     * A bidirectional solver keeps about 48 bytes per vertex, so an idle one for a graph this
+     * large would hold on to about 48 MB between moves of a control point; for larger graphs,
+     * allocating a solver per move costs little next to the search itself.
+     */
+    static final int IDLE_BIDIRECTIONAL_MAX_PIXELS = 1 << 20;
+
+    /**
+     * The graph that our solvers search.
+     */
+    private final ImageGraph graph;
+
+    /**
+     * The weigher that our solvers use.
+     */
+    private final CachingWeigher weigher;
+
+    /**
+     * Solvers that are not in use by any search.  Guarded by `this`.
+     */
+    private final ArrayDeque<ShortestPathsSolver> idle;
+
+    /**
+     * Bidirectional solvers that are not in use by any search.  Guarded by `this`.
+     */
+    private final ArrayDeque<BidirectionalShortestPaths<ImageVertex, ImageEdge>> idleBidirectional;
+
+    /**
+     * The kind of solver that we create.
+     */
+    private final SolverKind kind;
+
+    /**
+     * Create an empty pool of solvers of kind `kind` for `graph` whose edges are weighed by
+     * `weigher`.
+     */
+    ShortestPathsPool(ImageGraph graph, CachingWeigher weigher, SolverKind kind) {
+        this.graph = graph;
+        this.weigher = weigher;
+        this.kind = kind;
+        idle = new ArrayDeque<>();
+        idleBidirectional = new ArrayDeque<>();
+    }
+
+    /**
+     * Return the kind of solver that a pool for a graph with `vertexCount` vertices should create.
+     */
+    static SolverKind kindFor(int vertexCount) {
+        if (vertexCount >= COMPACT_MIN_PIXELS) {
+            return SolverKind.COMPACT;
+        } else if (vertexCount >= PARALLEL_MIN_PIXELS
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return SolverKind.PARALLEL;
+        } else {
+            return SolverKind.SEQUENTIAL;
+        }
+    }
+
+    /**
+     * Return the kind of solver that a pool for speculative background searches of a graph with
+     * `vertexCount` vertices should create: the same as `kindFor()`, except never PARALLEL.  The
+     * workers of a parallel solver run at normal priority, so they would compete with the EDT and
+     * with the searches that the user is waiting for, however low the priority of the thread
+     * driving them.
+     */
+    static SolverKind backgroundKindFor(int vertexCount) {
+        SolverKind kind = kindFor(vertexCount);
+        return (kind == SolverKind.PARALLEL) ? SolverKind.SEQUENTIAL : kind;
+    }
+
+    /**
+     * Return the kind of solver that `acquire()` creates.
+     */
+    SolverKind kind() {
+        return kind;
+    }
+
+    /**
+     * Return the weigher used by our solvers.
+     */
+    CachingWeigher weigher() {
+        return weigher;
+    }
+
+    /**
+     * Return an idle solver from this pool, creating a new one if none is available.  The caller
+     * owns the solver until it is passed to `release()`.  Requires that `ensureComputed()` has
+     * been called on our weigher, since new solvers are sized for its maximum weight.
+     */
+    synchronized ShortestPathsSolver acquire() {
+        ShortestPathsSolver solver = idle.pollFirst();
+        if (solver != null) {
+            return solver;
+        }
+        return switch (kind) {
+            case SEQUENTIAL -> new ShortestPaths<>(graph, weigher);
+            // Buckets as wide as the largest edge weight keep the number of rounds per bucket
+            //  small.
+            case PARALLEL -> new DeltaSteppingShortestPaths(graph, weigher,
+                    Math.max(1, weigher.maxWeight()));
+            case COMPACT -> new CompactShortestPaths(graph, weigher);
+        };
+    }
+
+    /**
+     * Return `solver`, which must have been acquired from this pool, so that it can be reused.
+     * Requires that no snapshot produced by `solver` will be queried again.  Solvers beyond
+     * `MAX_IDLE` (or `MAX_IDLE_PARALLEL`) are dropped so that their storage can be reclaimed.  Any
+     * cancellation token or settle observer set by the previous owner is cleared.
+     */
+    synchronized void release(ShortestPathsSolver solver) {
+        solver.discardSnapshots();
+        solver.setCancellationToken(null);
+        solver.setSettleObserver(null);
+        int maxIdle = (kind == SolverKind.PARALLEL) ? MAX_IDLE_PARALLEL : MAX_IDLE;
+        if (idle.size() < maxIdle) {
+            idle.addFirst(solver);
+        }
+    }
+
+    /**
+     * Return an idle bidirectional solver from this pool, creating a new one if none is available.
+     * The caller owns the solver until it is passed to `release()`.  Requires that
+     * `ensureComputed()` has been called on our weigher.  Bidirectional solvers keep a full
+     * `ShortestPaths` worth of storage per direction, so clients of a pool of COMPACT solvers
+     * should search with `acquire()` instead.
+     */
+    synchronized BidirectionalShortestPaths<ImageVertex, ImageEdge> acquireBidirectional() {
+        BidirectionalShortestPaths<ImageVertex, ImageEdge> solver = idleBidirectional.pollFirst();
+        return (solver != null) ? solver : new BidirectionalShortestPaths<>(graph, weigher);
+    }
+
+    /**
+     * Return `solver`, which must have been acquired from this pool by `acquireBidirectional()`,
+     * so that it can be reused.  Solvers beyond `MAX_IDLE_BIDIRECTIONAL`, and all solvers for
+     * graphs with at least `IDLE_BIDIRECTIONAL_MAX_PIXELS` vertices, are dropped so that their
+     * storage can be reclaimed.
+     */
+    synchronized void release(BidirectionalShortestPaths<ImageVertex, ImageEdge> solver) {
+        if (graph.vertexCount() < IDLE_BIDIRECTIONAL_MAX_PIXELS
+                && idleBidirectional.size() < MAX_IDLE_BIDIRECTIONAL) {
+            idleBidirectional.addFirst(solver);
+        }
+    }
+}
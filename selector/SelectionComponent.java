@@ -9,16 +9,20 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.Arrays;
 import java.util.List;
 import javax.swing.JComponent;
 import scissors.ImagePathsSnapshot;
+import scissors.PathfindingProgress;
 
 /**
  * A transparent (overlay) component enabling interactive selection (aka "tracing") of an underlying
@@ -74,6 +78,51 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
      */
     private Color controlPointColor = Color.CYAN;
 
+    /**
+     * The color used to shade pixels to which a pathfinding search in progress has found shortest
+     * paths.
+     */
+    private Color settledColor = new Color(192, 192, 96, 128);
+
+    /**
+     * The color used to shade pixels that a pathfinding search in progress has discovered but not
+     * settled.
+     */
+    private Color frontierColor = new Color(96, 96, 192, 128);
+
+    /* Pathfinding progress overlay */
+
+    /**
+     * Shading of the pixel statuses reported by the pathfinding search in progress, with one ARGB
+     * pixel per status (so at the search's resolution, which is coarser than the image's if
+     * `progressScale` exceeds 1), covering `progressBounds`.  Kept between repaints and updated
+     * only where progress reports say statuses have changed.  Null if no search has reported
+     * progress since our model or its image last changed.
+     */
+    private transient BufferedImage progressOverlay;
+
+    /**
+     * The pixels of `progressOverlay` in row-major order (the array backing its DataBuffer).
+     */
+    private int[] progressPixels;
+
+    /**
+     * The region covered by `progressOverlay`, in the search's coordinates (image coordinates
+     * divided by `progressScale`).
+     */
+    private Rectangle progressBounds;
+
+    /**
+     * The downsampling factor of the search whose statuses `progressOverlay` shades.
+     */
+    private int progressScale;
+
+    /**
+     * Whether the live wire was drawn the last time we painted it, rather than omitted because our
+     * model did not know its path yet.
+     */
+    private boolean liveWireShown;
+
     /**
      * Construct a new SelectionComponent that will participate in viewing and controlling the
      * selection modeled by `model`.  View will update upon receiving property change events from
@@ -115,6 +164,9 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
         // index may not be valid in the new model
         selectedIndex = -1;
 
+        // Any progress we were shading belongs to the old model's search
+        progressOverlay = null;
+
         // Model state has changed; update our view.
         repaint();
     }
@@ -164,8 +216,9 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
             paintMoveGuides(g, segments);
         }
 
-        // Draw live wire
-        if (model.state() == SELECTING && mouseLocation != null) {
+        // Draw live wire (also while processing a new point, if the model already knows the path)
+        if ((model.state() == SELECTING || model.state() == PROCESSING)
+                && mouseLocation != null) {
             paintLiveWire(g);
         }
 
@@ -177,8 +230,8 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
         // New in A6: Paint processing progress (if we recognize its type)
         if (model.state() == PROCESSING) {
             Object progress = model.getProcessingProgress();
-            if (progress instanceof ImagePathsSnapshot) {
-                paintPathfindingProgress(g, (ImagePathsSnapshot) progress);
+            if (progress instanceof PathfindingProgress) {
+                paintPathfindingProgress(g, (PathfindingProgress) progress);
             }
         }
     }
@@ -187,28 +240,99 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
 
     /**
      * Shade image pixels according to their current path search status (settled, frontier, or
-     * undiscovered).  Do nothing if there is no pending path solution.
-     */
-    private void paintPathfindingProgress(Graphics g, ImagePathsSnapshot pendingPaths) {
-        int settledColor = new Color(192, 192, 96, 128).getRGB();
-        int frontierColor = new Color(96, 96, 192, 128).getRGB();
-
-        Rectangle bounds = g.getClipBounds();
-        int width = Math.min(bounds.width, model.image().getWidth() - bounds.x);
-        int height = Math.min(bounds.height, model.image().getHeight() - bounds.y);
-
-        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        for (int x = bounds.x; x < bounds.x + width; ++x) {
-            for (int y = bounds.y; y < bounds.y + height; ++y) {
-                Point p = new Point(x, y);
-                if (pendingPaths.settled(p)) {
-                    img.setRGB(x - bounds.x, y - bounds.y, settledColor);
-                } else if (pendingPaths.discovered(p)) {
-                    img.setRGB(x - bounds.x, y - bounds.y, frontierColor);
+     * undiscovered), as last reported by `progress`.  The shading is kept in `progressOverlay`,
+     * which is updated as progress is reported, so this only draws that image (building it from
+     * scratch first if we have not seen this search's earlier reports).
+     */
+    private void paintPathfindingProgress(Graphics g, PathfindingProgress progress) {
+        if (progressOverlay == null) {
+            updateProgressOverlay(progress.statuses(), new Rectangle(0, 0,
+                    model.image().getWidth(), model.image().getHeight()));
+        }
+        int scale = progressScale;
+        g.drawImage(progressOverlay, progressBounds.x * scale, progressBounds.y * scale,
+                progressBounds.width * scale, progressBounds.height * scale, null);
+    }
+
+    /**
+     * Reshade the pixels of `progressOverlay` within `changed` (in image coordinates) according to
+     * `statuses`, first growing the overlay if it does not cover them, and return the region of
+     * the image covered by the reshaded overlay pixels (which may extend past `changed` to whole
+     * overlay pixels), or null if none were reshaded.  Takes time proportional to the number of
+     * statuses in `changed` (unless the overlay must grow), which is what makes repainting during
+     * a search cheap.
+     */
+    private Rectangle updateProgressOverlay(ImagePathsSnapshot statuses, Rectangle changed) {
+        if (changed.isEmpty()) {
+            return null;
+        }
+        int scale = statuses.scale();
+        if (scale != progressScale) {
+            progressOverlay = null;
+            progressScale = scale;
+        }
+        int imageWidth = model.image().getWidth();
+        int imageHeight = model.image().getHeight();
+        Rectangle grid = new Rectangle(0, 0, Math.ceilDiv(imageWidth, scale),
+                Math.ceilDiv(imageHeight, scale));
+        int x0 = changed.x / scale;
+        int y0 = changed.y / scale;
+        Rectangle region = new Rectangle(x0, y0,
+                Math.ceilDiv(changed.x + changed.width, scale) - x0,
+                Math.ceilDiv(changed.y + changed.height, scale) - y0).intersection(grid);
+        if (region.isEmpty()) {
+            return null;
+        }
+        coverProgressRegion(region, grid);
+
+        int settled = settledColor.getRGB();
+        int frontier = frontierColor.getRGB();
+        for (int y = region.y; y < region.y + region.height; ++y) {
+            int rowStart = (y - progressBounds.y) * progressBounds.width - progressBounds.x;
+            for (int x = region.x; x < region.x + region.width; ++x) {
+                int argb = 0;
+                if (statuses.settled(x * scale, y * scale)) {
+                    argb = settled;
+                } else if (statuses.discovered(x * scale, y * scale)) {
+                    argb = frontier;
                 }
+                progressPixels[rowStart + x] = argb;
+            }
+        }
+        return new Rectangle(region.x * scale, region.y * scale, region.width * scale,
+                region.height * scale);
+    }
+
+    /**
+     * Ensure that `progressOverlay` covers `region` (in the search's coordinates), reallocating it
+     * with room to spare (but within `grid`, the search's full extent) and copying its shading if
+     * it does not.  Searches spread outwards from their starting point, so growing by half again
+     * means that the overlay is reallocated only a logarithmic number of times per search, and
+     * that a search confined to a window never needs an overlay the size of the image.
+     */
+    private void coverProgressRegion(Rectangle region, Rectangle grid) {
+        if (progressOverlay != null && progressBounds.contains(region)) {
+            return;
+        }
+        Rectangle bounds = (progressOverlay == null) ? new Rectangle(region)
+                : progressBounds.union(region);
+        bounds.grow(bounds.width / 2, bounds.height / 2);
+        bounds = bounds.intersection(grid);
+
+        BufferedImage overlay = new BufferedImage(bounds.width, bounds.height,
+                BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) overlay.getRaster().getDataBuffer()).getData();
+        if (progressOverlay != null) {
+            int offset = (progressBounds.y - bounds.y) * bounds.width
+                    + (progressBounds.x - bounds.x);
+            for (int y = 0; y < progressBounds.height; ++y) {
+                System.arraycopy(progressPixels, y * progressBounds.width,
+                        pixels, offset + y * bounds.width, progressBounds.width);
             }
         }
-        g.drawImage(img, bounds.x, bounds.y, null);
+        progressOverlay = overlay;
+        progressPixels = pixels;
+        progressBounds = bounds;
     }
 
     /**
@@ -229,13 +353,17 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
 
     /**
      * Draw on `g` along our model's "live wire" path to our last-known mouse pointer location using
-     * our live wire color.
+     * our live wire color.  Draws nothing if our model does not know that path yet.
      */
     private void paintLiveWire(Graphics g) {
         // TODO 3C: Implement this method as specified.  The same Graphics methods you used in
         //  `paintSelectionPerimeter()` are relevant here.
         g.setColor(liveWireColor);
         PolyLine livewire = model.liveWire(mouseLocation);
+        liveWireShown = (livewire != null);
+        if (livewire == null) {
+            return;
+        }
         g.drawPolyline(livewire.xs(), livewire.ys(), livewire.size());
 
     }
@@ -315,12 +443,13 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
     }
 
     /**
-     * When a selection is in progress, update our last-observed mouse location to the location of
-     * this event and repaint ourselves to draw a "live wire" to the mouse pointer.
+     * When a selection is in progress (even if a new point is still being processed), update our
+     * last-observed mouse location to the location of this event and repaint ourselves to draw a
+     * "live wire" to the mouse pointer.
      */
     @Override
     public void mouseMoved(MouseEvent e) {
-        if (model.state() == SELECTING) {
+        if (model.state() == SELECTING || model.state() == PROCESSING) {
             updateMouseLocation(e.getPoint());
         }
     }
@@ -373,7 +502,9 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
 
     /**
      * Repaint to update our view in response to any property changes from our model.  Additionally,
-     * if the "image" property changed, update our preferred size to match the new image size.
+     * if the "image" property changed, update our preferred size to match the new image size.  A
+     * report of pathfinding progress updates our progress overlay and only repaints the pixels it
+     * says have changed (plus the live wire, which may have just become known).
      */
     @Override
     public void propertyChange(PropertyChangeEvent e) {
@@ -382,6 +513,16 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
             BufferedImage img = (BufferedImage) e.getNewValue();
             setPreferredSize(new Dimension(img.getWidth(), img.getHeight()));
         }
+        if (e.getPropertyName().equals("image")) {
+            progressOverlay = null;
+        }
+
+        // A new search is starting, so clear the shading of the previous one (keeping the overlay
+        // for reuse)
+        if (e.getPropertyName().equals("state") && e.getNewValue() == PROCESSING
+                && progressOverlay != null) {
+            Arrays.fill(progressPixels, 0);
+        }
 
         // If the model's selection changed while we are interacting with a control point, cancel
         // that interaction (since our selected index may no longer be valid).
@@ -389,6 +530,30 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
             selectedIndex = -1;
         }
 
+        if (e.getPropertyName().equals("pending-paths")
+                && e.getNewValue() instanceof PathfindingProgress progress) {
+            // Repaint exactly the overlay pixels that were reshaded, which are drawn scaled up by
+            //  the search's downsampling factor.
+            Rectangle reshaded = updateProgressOverlay(progress.statuses(),
+                    progress.changedBounds());
+            if (reshaded != null) {
+                repaint(reshaded);
+            }
+            // A live wire that is already shown ends at a settled pixel, so its path is final;
+            //  only look for one that the search may have just found.
+            if (mouseLocation != null && !liveWireShown) {
+                PolyLine livewire = model.liveWire(mouseLocation);
+                if (livewire != null) {
+                    Rectangle wireBounds = new Polygon(livewire.xs(), livewire.ys(),
+                            livewire.size()).getBounds();
+                    // Polygon bounds exclude the far edge of the stroke
+                    wireBounds.grow(1, 1);
+                    repaint(wireBounds);
+                }
+            }
+            return;
+        }
+
         // If any property of the model changed, repaint to update view
         repaint();
     }
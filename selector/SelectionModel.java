@@ -199,7 +199,8 @@ public abstract class SelectionModel {
 
     /**
      * Return the path from our last point to `p` that would be appended to the selection if `p`
-     * were to be added with `addPoint()`.
+     * were to be added with `addPoint()`.  While PROCESSING, a model may return the path from the
+     * point being processed if it is already known, or null if it is not.
      */
     public abstract PolyLine liveWire(Point p);
 
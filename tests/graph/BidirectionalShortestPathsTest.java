@@ -0,0 +1,58 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks `BidirectionalShortestPaths` against a plain Dijkstra search on random grids (see
+ * `RandomGrid`).
+ */
+class BidirectionalShortestPathsTest {
+
+    @DisplayName("BidirectionalShortestPaths finds paths of the reference weight")
+    @Test
+    void testBidirectionalMatchesReference() {
+        Random rng = new Random(5);
+        for (boolean bounded : new boolean[]{true, false}) {
+            RandomGrid grid = new RandomGrid(27, 21, 25, bounded, 13);
+            BidirectionalShortestPaths<RandomGrid.GridVertex, RandomGrid.GridEdge> solver =
+                    new BidirectionalShortestPaths<>(grid, grid);
+            for (int query = 0; query < 60; ++query) {
+                int srcId = rng.nextInt(grid.vertexCount());
+                int dstId = rng.nextInt(grid.vertexCount());
+                List<Integer> path = solver.findPath(srcId, dstId);
+                assertEquals(srcId, (int) path.get(0));
+                assertEquals(dstId, (int) path.get(path.size() - 1));
+                assertEquals(grid.referenceDistances(srcId)[dstId], grid.pathWeight(path));
+            }
+        }
+    }
+
+    @DisplayName("Bidirectional queries between a vertex and itself return that vertex")
+    @Test
+    void testBidirectionalTrivialPath() {
+        RandomGrid grid = new RandomGrid(5, 5, 4, true, 1);
+        assertEquals(List.of(12), new BidirectionalShortestPaths<>(grid, grid).findPath(12, 12));
+    }
+
+    @DisplayName("A cancelled bidirectional query returns null, and the solver stays usable")
+    @Test
+    void testBidirectionalCancellation() {
+        RandomGrid grid = new RandomGrid(27, 21, 25, true, 2);
+        BidirectionalShortestPaths<RandomGrid.GridVertex, RandomGrid.GridEdge> solver =
+                new BidirectionalShortestPaths<>(grid, grid);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        solver.setCancellationToken(token);
+        assertNull(solver.findPath(0, grid.vertexCount() - 1));
+
+        solver.setCancellationToken(null);
+        List<Integer> path = solver.findPath(0, grid.vertexCount() - 1);
+        assertEquals(grid.referenceDistances(0)[grid.vertexCount() - 1], grid.pathWeight(path));
+    }
+}
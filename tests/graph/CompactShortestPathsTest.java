@@ -0,0 +1,38 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks `CompactShortestPaths` against a plain Dijkstra search on random grids (see
+ * `RandomGrid`).  Its snapshots know no distances, so only paths are compared.
+ */
+class CompactShortestPathsTest {
+
+    @DisplayName("CompactShortestPaths finds paths of the reference weight, across more searches "
+            + "than its marks have epochs")
+    @Test
+    void testCompactMatchesReference() {
+        RandomGrid grid = new RandomGrid(17, 11, 15, true, 11);
+        CompactShortestPaths solver = new CompactShortestPaths(grid, grid);
+        for (int i = 0; i < 70; ++i) {
+            int startId = (i * 31) % grid.vertexCount();
+            solver.discardSnapshots();
+            solver.setStart(startId);
+            PathfindingSnapshot paths = solver.extendSearch(grid.vertexCount());
+            assertTrue(solver.allPathsFound());
+            assertEquals(grid.vertexCount(), solver.progress().settledCount());
+            grid.assertMatchesReference(startId, paths, false);
+            assertEquals(0, paths.distanceTo(startId));
+        }
+
+        // A frontier of more than a thousand vertices grows the solver's frontier storage.
+        RandomGrid large = new RandomGrid(240, 200, 15, true, 12);
+        CompactShortestPaths largeSolver = new CompactShortestPaths(large, large);
+        largeSolver.setStart(24_120);
+        large.assertMatchesReference(24_120, largeSolver.extendSearch(large.vertexCount()), false);
+    }
+}
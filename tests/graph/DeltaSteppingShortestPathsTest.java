@@ -0,0 +1,37 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks `DeltaSteppingShortestPaths` against a plain Dijkstra search on random grids (see
+ * `RandomGrid`).
+ */
+class DeltaSteppingShortestPathsTest {
+
+    @DisplayName("DeltaSteppingShortestPaths matches Dijkstra with several worker threads")
+    @Test
+    void testDeltaSteppingMatchesReference() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long seed = 0; seed < 3; ++seed) {
+                // Large enough that relaxation rounds are split between threads.
+                RandomGrid grid = new RandomGrid(64, 48, 30, true, seed);
+                DeltaSteppingShortestPaths solver =
+                        new DeltaSteppingShortestPaths(grid, grid, pool, 7);
+                for (int startId : new int[]{0, 1555, grid.vertexCount() - 1}) {
+                    solver.discardSnapshots();
+                    solver.setStart(startId);
+                    PathfindingSnapshot paths = solver.extendSearch(grid.vertexCount());
+                    assertTrue(solver.allPathsFound());
+                    grid.assertMatchesReference(startId, paths, true);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the integer priority queues used by the solvers remove their elements in order.
+ */
+class IntMinQueueTest {
+
+    /**
+     * Add the elements `[0..priorities.length)` to `queue` with the given priorities, then assert
+     * that they are removed in nondecreasing order of priority.
+     */
+    private static void assertRemovesInOrder(IntMinQueue queue, int[] priorities) {
+        for (int key = 0; key < priorities.length; ++key) {
+            queue.addOrUpdate(key, priorities[key]);
+        }
+        int[] sorted = priorities.clone();
+        Arrays.sort(sorted);
+        for (int expected : sorted) {
+            assertEquals(expected, queue.minPriority());
+            assertEquals(expected, priorities[queue.remove()]);
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @DisplayName("BucketMinQueue wraps around its buckets and grows when priorities span more "
+            + "than it was sized for")
+    @Test
+    void testBucketMinQueueWraparoundAndGrowth() {
+        // Sized for a span of 3 (4 buckets), so a long monotone run wraps around many times.
+        BucketMinQueue queue = new BucketMinQueue(8, 3);
+        for (int key = 0; key < 3; ++key) {
+            queue.addOrUpdate(key, key);
+        }
+        for (int priority = 0; priority < 200; ++priority) {
+            assertEquals(priority, queue.minPriority());
+            int key = queue.remove();
+            assertEquals(priority % 3, key);
+            queue.addOrUpdate(key, priority + 3);
+        }
+        queue.clear();
+        assertTrue(queue.isEmpty());
+
+        // Priorities spanning far more than 3 force the bucket array to grow, mid-wraparound.
+        queue.addOrUpdate(0, 1000);
+        queue.addOrUpdate(1, 1002);
+        assertEquals(0, queue.remove());
+        assertRemovesInOrder(queue, new int[]{1005, 1500, 1004, 1009, 1200, 1003, 1100});
+
+        // Updating a priority moves its element between buckets.
+        queue.clear();
+        queue.addOrUpdate(4, 10);
+        queue.addOrUpdate(5, 50);
+        queue.addOrUpdate(5, 11);
+        assertEquals(4, queue.remove());
+        assertEquals(5, queue.remove());
+        assertTrue(queue.isEmpty());
+    }
+
+    @DisplayName("BucketMinQueue and IntHeapMinQueue remove random priorities in order")
+    @Test
+    void testQueuesRemoveInOrder() {
+        Random rng = new Random(17);
+        int[] priorities = new int[500];
+        for (int i = 0; i < priorities.length; ++i) {
+            priorities[i] = rng.nextInt(300);
+        }
+        assertRemovesInOrder(new BucketMinQueue(priorities.length, 4), priorities);
+        assertRemovesInOrder(new IntHeapMinQueue(priorities.length), priorities);
+    }
+}
@@ -0,0 +1,203 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * A `width` by `height` grid in which each vertex has an edge to each of its (up to) 8 neighbors,
+ * weighed by random weights in `[0..maxWeight]` (including 0, as the scissors weighers produce).
+ * Weighs its own edges, declaring its maximum weight only if `bounded`.  Shared by the solver
+ * tests, which check solvers against the plain Dijkstra search in `referenceDistances()`.  Ties
+ * between paths of equal weight may be broken differently by each solver, so paths are compared
+ * by their total weight rather than by their vertices.
+ */
+class RandomGrid implements ReversibleGraph<RandomGrid.GridVertex, RandomGrid.GridEdge>, GridGraph,
+        ReversibleIntGraph, Weigher<RandomGrid.GridEdge>, IntWeigher {
+
+    /**
+     * Offsets to the neighbor in each of the 8 directions, as in `scissors.ImageGraph`.
+     */
+    private static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] DY = {0, -1, -1, -1, 0, 1, 1, 1};
+
+    /**
+     * An edge of a `RandomGrid`.
+     */
+    record GridEdge(int startId, int endId, int dir) implements Edge {}
+
+    /**
+     * A vertex of a `RandomGrid`.
+     */
+    record GridVertex(int id, List<GridEdge> outgoingEdges) implements Vertex<GridEdge> {}
+
+    final int width;
+    final int height;
+    final int maxWeight;
+    final boolean bounded;
+
+    /**
+     * `weights[8 * id + dir]` is the weight of the edge leaving vertex `id` in direction `dir`.
+     */
+    final int[] weights;
+
+    RandomGrid(int width, int height, int maxWeight, boolean bounded, long seed) {
+        this.width = width;
+        this.height = height;
+        this.maxWeight = maxWeight;
+        this.bounded = bounded;
+        Random rng = new Random(seed);
+        weights = new int[8 * width * height];
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] = rng.nextInt(maxWeight + 1);
+        }
+    }
+
+    boolean hasEdge(int id, int dir) {
+        int x = id % width + DX[dir];
+        int y = id / width + DY[dir];
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    int neighborId(int id, int dir) {
+        return id + DX[dir] + width * DY[dir];
+    }
+
+    @Override
+    public int vertexCount() {
+        return width * height;
+    }
+
+    @Override
+    public GridVertex getVertex(int id) {
+        List<GridEdge> edges = new ArrayList<>();
+        for (int dir = 0; dir < 8; ++dir) {
+            if (hasEdge(id, dir)) {
+                edges.add(new GridEdge(id, neighborId(id, dir), dir));
+            }
+        }
+        return new GridVertex(id, edges);
+    }
+
+    @Override
+    public Iterable<GridEdge> incomingEdges(int id) {
+        List<GridEdge> edges = new ArrayList<>();
+        for (GridEdge out : getVertex(id).outgoingEdges()) {
+            edges.add(new GridEdge(out.endId(), id, (out.dir() + 4) % 8));
+        }
+        return edges;
+    }
+
+    @Override
+    public void forEachNeighbor(int id, IntWeigher weigher, IntEdgeVisitor visitor) {
+        for (int dir = 0; dir < 8; ++dir) {
+            if (hasEdge(id, dir)) {
+                visitor.visit(neighborId(id, dir), dir, weigher.weight(id, dir));
+            }
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(int id, IntWeigher weigher, IntEdgeVisitor visitor) {
+        for (int dir = 0; dir < 8; ++dir) {
+            if (hasEdge(id, dir)) {
+                int neighborId = neighborId(id, dir);
+                int reverseDir = (dir + 4) % 8;
+                visitor.visit(neighborId, reverseDir, weigher.weight(neighborId, reverseDir));
+            }
+        }
+    }
+
+    @Override
+    public int predecessorId(int id, int dir) {
+        return id - DX[dir] - width * DY[dir];
+    }
+
+    @Override
+    public int weight(int startId, int dir) {
+        return weights[8 * startId + dir];
+    }
+
+    @Override
+    public int weight(GridEdge edge) {
+        return weight(edge.startId(), edge.dir());
+    }
+
+    @Override
+    public int maxWeight() {
+        return bounded ? maxWeight : -1;
+    }
+
+    /**
+     * Return the distances from `startId` to every vertex, found by a plain Dijkstra search.
+     */
+    int[] referenceDistances(int startId) {
+        int[] distances = new int[vertexCount()];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[startId] = 0;
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[1], b[1]));
+        queue.add(new int[]{startId, 0});
+        while (!queue.isEmpty()) {
+            int[] entry = queue.remove();
+            int id = entry[0];
+            if (entry[1] > distances[id]) {
+                continue;
+            }
+            for (int dir = 0; dir < 8; ++dir) {
+                if (hasEdge(id, dir)) {
+                    int to = neighborId(id, dir);
+                    int d = distances[id] + weight(id, dir);
+                    if (d < distances[to]) {
+                        distances[to] = d;
+                        queue.add(new int[]{to, d});
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Return the total weight of `path`, asserting that each step follows an edge.
+     */
+    int pathWeight(List<Integer> path) {
+        int total = 0;
+        for (int i = 1; i < path.size(); ++i) {
+            int from = path.get(i - 1);
+            int to = path.get(i);
+            int step = -1;
+            for (int dir = 0; dir < 8; ++dir) {
+                if (hasEdge(from, dir) && neighborId(from, dir) == to) {
+                    step = weight(from, dir);
+                }
+            }
+            assertTrue(step >= 0, "Path steps from " + from + " to non-neighbor " + to);
+            total += step;
+        }
+        return total;
+    }
+
+    /**
+     * Assert that `paths`, a complete search from `startId`, has settled every vertex of this grid
+     * along a path of the reference weight.  Distances are only checked if `checkDistances`.
+     */
+    void assertMatchesReference(int startId, PathfindingSnapshot paths, boolean checkDistances) {
+        int[] expected = referenceDistances(startId);
+        assertEquals(startId, paths.start());
+        for (int id = 0; id < vertexCount(); ++id) {
+            assertTrue(paths.settled(id), "Vertex " + id + " not settled");
+            List<Integer> path = paths.pathTo(id);
+            assertEquals(startId, (int) path.get(0));
+            assertEquals(id, (int) path.get(path.size() - 1));
+            assertEquals(expected[id], pathWeight(path), "Weight of path to " + id);
+            if (checkDistances) {
+                assertEquals(expected[id], paths.distanceTo(id), "Distance to " + id);
+            }
+        }
+    }
+}
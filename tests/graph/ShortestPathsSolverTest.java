@@ -0,0 +1,69 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the operations that every `ShortestPathsSolver` shares, on random grids (see
+ * `RandomGrid`).
+ */
+class ShortestPathsSolverTest {
+
+    @DisplayName("extendSearchUntil() settles its targets and can be resumed to a full search")
+    @Test
+    void testExtendSearchUntil() {
+        RandomGrid grid = new RandomGrid(31, 29, 12, true, 3);
+        int startId = 400;
+        int[] expected = grid.referenceDistances(startId);
+        List<ShortestPathsSolver> solvers = List.of(new ShortestPaths<>(grid, grid),
+                new CompactShortestPaths(grid, grid),
+                new DeltaSteppingShortestPaths(grid, grid, grid.maxWeight));
+        for (ShortestPathsSolver solver : solvers) {
+            solver.setStart(startId);
+            PathfindingSnapshot partial = solver.extendSearchUntil(410, 3);
+            assertTrue(partial.settled(410) && partial.settled(3));
+            assertEquals(expected[410], grid.pathWeight(partial.pathTo(410)));
+            assertEquals(expected[3], grid.pathWeight(partial.pathTo(3)));
+            assertFalse(solver.allPathsFound());
+            PathfindingSnapshot full = solver.extendSearch(grid.vertexCount());
+            assertTrue(solver.allPathsFound());
+            grid.assertMatchesReference(startId, full,
+                    !(solver instanceof CompactShortestPaths));
+        }
+    }
+
+    @DisplayName("findPathTo() continues a search from the same start and restarts a confined one")
+    @Test
+    void testFindPathTo() {
+        RandomGrid grid = new RandomGrid(31, 29, 12, true, 5);
+        int startId = 250;
+        int[] expected = grid.referenceDistances(startId);
+        List<ShortestPathsSolver> solvers = List.of(new ShortestPaths<>(grid, grid),
+                new CompactShortestPaths(grid, grid),
+                new DeltaSteppingShortestPaths(grid, grid, grid.maxWeight));
+        for (ShortestPathsSolver solver : solvers) {
+            int settled = 0;
+            for (int dstId : new int[]{251, 600, 2, 600, grid.vertexCount() - 1}) {
+                PathfindingSnapshot paths = solver.findPathTo(startId, dstId);
+                assertEquals(startId, paths.start());
+                assertEquals(expected[dstId], grid.pathWeight(paths.pathTo(dstId)));
+                // Queries from the same start never give up what earlier ones settled.
+                int nowSettled = solver.progress().settledCount();
+                assertTrue(nowSettled >= settled);
+                settled = nowSettled;
+            }
+
+            // A path confined to a single row need not be the shortest, so it must not be reused.
+            solver.setStart(startId);
+            solver.restrictTo(id -> id / grid.width == startId / grid.width);
+            solver.extendSearchUntil(startId + 3);
+            PathfindingSnapshot paths = solver.findPathTo(startId, startId + 3);
+            assertEquals(expected[startId + 3], grid.pathWeight(paths.pathTo(startId + 3)));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package graph;
+
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks `ShortestPaths` against a plain Dijkstra search on random grids (see `RandomGrid`).
+ */
+class ShortestPathsTest {
+
+    @DisplayName("ShortestPaths matches Dijkstra with both a bucket queue and a heap")
+    @Test
+    void testShortestPathsMatchesReference() {
+        for (long seed = 0; seed < 4; ++seed) {
+            RandomGrid bounded = new RandomGrid(23, 17, 9, true, seed);
+            int startId = (int) (seed * 37) % bounded.vertexCount();
+            bounded.assertMatchesReference(startId,
+                    new ShortestPaths<>(bounded, bounded).findAllPaths(startId), true);
+
+            RandomGrid unbounded = new RandomGrid(23, 17, 1000, false, seed);
+            unbounded.assertMatchesReference(startId,
+                    new ShortestPaths<>(unbounded, unbounded).findAllPaths(startId), true);
+        }
+    }
+
+    @DisplayName("ShortestPaths traverses Edge objects when its weigher cannot weigh by direction, "
+            + "with the same results")
+    @Test
+    void testObjectTraversalMatchesReference() {
+        for (long seed = 0; seed < 4; ++seed) {
+            RandomGrid grid = new RandomGrid(23, 17, 9, true, seed);
+            int startId = (int) (seed * 37) % grid.vertexCount();
+            Weigher<RandomGrid.GridEdge> objectWeigher = grid::weight;
+            grid.assertMatchesReference(startId,
+                    new ShortestPaths<>(grid, objectWeigher).findAllPaths(startId), true);
+        }
+    }
+
+    @DisplayName("A reused ShortestPaths solver resets in O(1) and keeps returned snapshots valid")
+    @Test
+    void testShortestPathsReuse() {
+        RandomGrid grid = new RandomGrid(19, 13, 20, true, 7);
+        ShortestPaths<RandomGrid.GridVertex, RandomGrid.GridEdge> solver = new ShortestPaths<>(grid, grid);
+        PathfindingSnapshot kept = solver.findAllPaths(5);
+        // Not discarded, so the next search must not overwrite `kept`.
+        solver.findAllPaths(100);
+        grid.assertMatchesReference(5, kept, true);
+        for (int startId = 0; startId < grid.vertexCount(); startId += 17) {
+            solver.discardSnapshots();
+            grid.assertMatchesReference(startId, solver.findAllPaths(startId), true);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static selector.SelectionModel.SelectionState.*;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import selector.PolyLine;
+import selector.SelectionModel.SelectionState;
+
+/**
+ * Checks `ScissorsSelectionModel` on images of 16M pixels, the size at which it searches within a
+ * region of interest around each point and moves points with compact solvers, so these tests use
+ * one image of exactly that size.  The model is only used on the EDT, as the GUI uses it, and its
+ * background work is awaited by polling.
+ */
+class ScissorsSelectionModelTest {
+
+    /**
+     * How long to wait for background work before failing, in milliseconds.
+     */
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * A gray image of 8192 by 2048 pixels (16M pixels, just large enough for region of interest
+     * mode) with a repeating texture, shared by all tests.
+     */
+    private static final BufferedImage IMAGE = texturedImage(8192, 2048);
+
+    /**
+     * A pixel near the image's corner to start selections from.
+     */
+    private static final Point START = new Point(100, 100);
+
+    /**
+     * A pixel outside the window that is settled around `START` before that window grows.
+     */
+    private static final Point FAR = new Point(1000, 300);
+
+    /**
+     * Return a gray image of size `width` by `height` with a texture that gives the weighers
+     * edges to follow.
+     */
+    private static BufferedImage texturedImage(int width, int height) {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                pixels[y * width + x] = (byte) ((x * 7) ^ (y * 13));
+            }
+        }
+        return img;
+    }
+
+    /**
+     * Return the result of `action`, run on the EDT.
+     */
+    private static <T> T onEdt(Supplier<T> action) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> result.set(action.get()));
+        return result.get();
+    }
+
+    /**
+     * Run `action` on the EDT.
+     */
+    private static void runOnEdt(Runnable action) throws Exception {
+        SwingUtilities.invokeAndWait(action);
+    }
+
+    /**
+     * Return the first non-null result of `query`, run on the EDT repeatedly until it returns one.
+     * Fails if that takes longer than `TIMEOUT_MILLIS`.
+     */
+    private static <T> T await(Supplier<T> query) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            T result = onEdt(query);
+            if (result != null) {
+                return result;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Wait until `model` is in state `expected`.
+     */
+    private static void awaitState(ScissorsSelectionModel model, SelectionState expected)
+            throws Exception {
+        await(() -> (model.state() == expected) ? expected : null);
+    }
+
+    /**
+     * Return a model tracing `IMAGE` whose selection has been started at `START`, once the search
+     * from `START` has finished.
+     */
+    private static ScissorsSelectionModel startedModel() throws Exception {
+        ScissorsSelectionModel model = onEdt(() -> {
+            ScissorsSelectionModel m = new ScissorsSelectionModel("CrossGradMono", false);
+            m.setImage(IMAGE);
+            m.addPoint(START);
+            return m;
+        });
+        awaitState(model, SELECTING);
+        return model;
+    }
+
+    @DisplayName("The live wire outside the settled window grows it without changing state")
+    @Test
+    void testLiveWireGrowsWindow() throws Exception {
+        ScissorsSelectionModel model = startedModel();
+
+        PolyLine near = onEdt(() -> model.liveWire(new Point(120, 130)));
+        assertNotNull(near);
+        assertEquals(START, near.start());
+
+        assertNull(onEdt(() -> model.liveWire(FAR)));
+        assertEquals(SELECTING, onEdt(model::state));
+
+        PolyLine far = await(() -> model.liveWire(FAR));
+        assertEquals(START, far.start());
+        assertEquals(FAR, far.end());
+        assertEquals(SELECTING, onEdt(model::state));
+    }
+
+    @DisplayName("A click outside the settled window is committed once a background search "
+            + "settles it")
+    @Test
+    void testClickOutsideWindow() throws Exception {
+        ScissorsSelectionModel model = startedModel();
+
+        runOnEdt(() -> model.addPoint(FAR));
+        // The click is not committed on the EDT.
+        assertEquals(0, (int) onEdt(() -> model.selection().size()));
+
+        await(() -> (model.state() == SELECTING && model.selection().size() == 1) ? true : null);
+        PolyLine segment = onEdt(() -> model.selection().get(0));
+        assertEquals(START, segment.start());
+        assertEquals(FAR, segment.end());
+        assertEquals(FAR, onEdt(model::lastPoint));
+    }
+
+    @DisplayName("Undoing a click outside the settled window cancels it without adding a point")
+    @Test
+    void testCancelClickOutsideWindow() throws Exception {
+        ScissorsSelectionModel model = startedModel();
+
+        SelectionState afterClick = onEdt(() -> {
+            model.addPoint(FAR);
+            SelectionState state = model.state();
+            model.undo();
+            return state;
+        });
+        assertEquals(PROCESSING, afterClick);
+
+        awaitState(model, SELECTING);
+        assertEquals(0, (int) onEdt(() -> model.selection().size()));
+        assertEquals(START, onEdt(model::lastPoint));
+        // Our paths from the start are still usable.
+        assertNotNull(onEdt(() -> model.liveWire(new Point(120, 130))));
+    }
+
+    @DisplayName("A superseded search is cancelled and its point undone")
+    @Test
+    void testCancelSearch() throws Exception {
+        ScissorsSelectionModel model = startedModel();
+
+        Point next = new Point(150, 120);
+        runOnEdt(() -> model.addPoint(next));
+        assertEquals(1, (int) onEdt(() -> model.selection().size()));
+        runOnEdt(() -> {
+            if (model.state() == PROCESSING) {
+                model.undo();
+            }
+        });
+        awaitState(model, SELECTING);
+        // Either the search finished before the undo, or the undo removed its point.
+        int size = onEdt(() -> model.selection().size());
+        assertTrue(size == 0 || size == 1);
+        assertEquals((size == 0) ? START : next, onEdt(model::lastPoint));
+    }
+
+    @DisplayName("Moving a control point reroutes both of its segments")
+    @Test
+    void testMovePoint() throws Exception {
+        ScissorsSelectionModel model = startedModel();
+        Point second = new Point(200, 110);
+        Point third = new Point(150, 200);
+        runOnEdt(() -> model.addPoint(second));
+        awaitState(model, SELECTING);
+        runOnEdt(() -> model.addPoint(third));
+        awaitState(model, SELECTING);
+        runOnEdt(model::finishSelection);
+        awaitState(model, SELECTED);
+
+        Point moved = new Point(230, 140);
+        runOnEdt(() -> model.movePoint(1, moved));
+        awaitState(model, SELECTED);
+        PolyLine before = onEdt(() -> model.selection().get(0));
+        PolyLine after = onEdt(() -> model.selection().get(1));
+        assertEquals(START, before.start());
+        assertEquals(moved, before.end());
+        assertEquals(moved, after.start());
+        assertEquals(third, after.end());
+    }
+}
@@ -0,0 +1,52 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import graph.IntWeigher;
+import graph.Weigher;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the weighers of `ScissorsWeights` weigh edges identically whether they are given an
+ * ImageEdge or an edge's start and direction, and that `CachingWeigher` preserves their weights.
+ */
+class ScissorsWeightsTest {
+
+    /**
+     * Return a color image of size `width` by `height` filled with random pixels chosen by `seed`.
+     */
+    private static BufferedImage randomImage(int width, int height, long seed) {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random rng = new Random(seed);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                img.setRGB(x, y, rng.nextInt(1 << 24));
+            }
+        }
+        return img;
+    }
+
+    @DisplayName("Weighing by start and direction agrees with weighing ImageEdges, with and "
+            + "without caching")
+    @Test
+    void testIntWeightsMatchEdgeWeights() {
+        ImageGraph graph = new ImageGraph(randomImage(13, 9, 4));
+        for (String name : ScissorsWeights.weightNames()) {
+            Weigher<ImageEdge> source = ScissorsWeights.makeWeigher(name, graph);
+            IntWeigher intSource = (IntWeigher) source;
+            CachingWeigher cached = new CachingWeigher(graph, name);
+            cached.ensureComputed();
+            for (int id = 0; id < graph.vertexCount(); ++id) {
+                for (ImageEdge edge : graph.getVertex(id).outgoingEdges()) {
+                    int expected = source.weight(edge);
+                    assertEquals(expected, intSource.weight(id, edge.dir()), name);
+                    assertEquals(expected, cached.weight(id, edge.dir()), name);
+                    assertEquals(expected, cached.weight(edge), name);
+                }
+            }
+        }
+    }
+}